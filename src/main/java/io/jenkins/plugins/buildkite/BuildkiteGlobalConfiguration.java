@@ -0,0 +1,133 @@
+package io.jenkins.plugins.buildkite;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.util.FormValidation;
+import jenkins.model.GlobalConfiguration;
+import jenkins.model.Jenkins;
+import lombok.Getter;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+import java.net.URI;
+
+/**
+ * Controller-wide settings of the Buildkite API client and of polling. Changes apply to the next request:
+ * the shared HTTP client is rebuilt when its settings differ from the ones it was created with.
+ */
+@Extension
+@Symbol("buildkite")
+public class BuildkiteGlobalConfiguration extends GlobalConfiguration {
+    public static final String DEFAULT_API_BASE_URL = "https://api.buildkite.com/v2";
+    public static final int DEFAULT_TIMEOUT_IN_SECONDS = 60;
+    public static final int DEFAULT_MAX_CONNECTIONS = 50;
+    public static final int DEFAULT_INITIAL_POLL_DELAY_SECONDS = 2;
+    public static final int DEFAULT_POLL_INTERVAL_SECONDS = 7;
+    public static final int DEFAULT_WARM_UP_CONNECTIONS = 0;
+
+    // Used while Jenkins isn't running, e.g. in unit tests
+    private static final BuildkiteGlobalConfiguration DEFAULTS = new BuildkiteGlobalConfiguration(false);
+
+    @Getter private String apiBaseUrl = DEFAULT_API_BASE_URL;
+    @Getter private int timeoutInSeconds = DEFAULT_TIMEOUT_IN_SECONDS;
+    @Getter private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+    @Getter private int initialPollDelaySeconds = DEFAULT_INITIAL_POLL_DELAY_SECONDS;
+    @Getter private int pollIntervalSeconds = DEFAULT_POLL_INTERVAL_SECONDS;
+    @Getter private int warmUpConnections = DEFAULT_WARM_UP_CONNECTIONS;
+
+    public BuildkiteGlobalConfiguration() {
+        this(true);
+    }
+
+    private BuildkiteGlobalConfiguration(boolean load) {
+        if (load) {
+            load();
+        }
+    }
+
+    public static BuildkiteGlobalConfiguration get() {
+        if (Jenkins.getInstanceOrNull() == null) {
+            return DEFAULTS;
+        }
+
+        return ExtensionList.lookupSingleton(BuildkiteGlobalConfiguration.class);
+    }
+
+    @DataBoundSetter
+    public void setApiBaseUrl(String apiBaseUrl) {
+        if (apiBaseUrl == null || apiBaseUrl.trim().isEmpty()) {
+            this.apiBaseUrl = DEFAULT_API_BASE_URL;
+        } else {
+            this.apiBaseUrl = apiBaseUrl.trim().replaceAll("/+$", "");
+        }
+        save();
+    }
+
+    @DataBoundSetter
+    public void setTimeoutInSeconds(int timeoutInSeconds) {
+        if (timeoutInSeconds < 1) return;
+
+        this.timeoutInSeconds = timeoutInSeconds;
+        save();
+    }
+
+    @DataBoundSetter
+    public void setMaxConnections(int maxConnections) {
+        if (maxConnections < 1) return;
+
+        this.maxConnections = maxConnections;
+        save();
+    }
+
+    @DataBoundSetter
+    public void setInitialPollDelaySeconds(int initialPollDelaySeconds) {
+        if (initialPollDelaySeconds < 0) return;
+
+        this.initialPollDelaySeconds = initialPollDelaySeconds;
+        save();
+    }
+
+    @DataBoundSetter
+    public void setPollIntervalSeconds(int pollIntervalSeconds) {
+        if (pollIntervalSeconds < 1) return;
+
+        this.pollIntervalSeconds = pollIntervalSeconds;
+        save();
+    }
+
+    /**
+     * Number of connections to the API opened at startup and kept alive afterwards, 0 to disable warming up.
+     */
+    @DataBoundSetter
+    public void setWarmUpConnections(int warmUpConnections) {
+        if (warmUpConnections < 0) return;
+
+        this.warmUpConnections = warmUpConnections;
+        save();
+    }
+
+    @Override
+    public synchronized void save() {
+        if (this != DEFAULTS) {
+            super.save();
+        }
+    }
+
+    public FormValidation doCheckApiBaseUrl(@QueryParameter String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return FormValidation.ok();
+        }
+
+        try {
+            URI uri = new URI(value.trim());
+            if (!"https".equals(uri.getScheme()) && !"http".equals(uri.getScheme())) {
+                return FormValidation.error("Must be an http or https URL");
+            }
+        } catch (Exception e) {
+            return FormValidation.error("Not a valid URL");
+        }
+
+        return FormValidation.ok();
+    }
+}
@@ -4,40 +4,186 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import hudson.Util;
 import hudson.util.Secret;
+import io.jenkins.plugins.buildkite.BuildkiteGlobalConfiguration;
+import io.jenkins.plugins.buildkite.telemetry.ApiEndpoint;
+import io.jenkins.plugins.buildkite.telemetry.BuildkiteApiCallEvent;
+import io.jenkins.plugins.buildkite.telemetry.BuildkiteMetrics;
+import jenkins.util.Timer;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.classic.methods.HttpPut;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.Timeout;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 public class BuildkiteApiClient {
+    private static final Logger LOGGER = Logger.getLogger(BuildkiteApiClient.class.getName());
     private static final ObjectMapper MAPPER = new ObjectMapper()
             .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
-    private static final String BUILDKITE_API_BASE = "https://api.buildkite.com/v2";
-    private Secret apiToken;
-    private CloseableHttpClient httpClient;
+    private static final int PAGE_SIZE = 100;
+    // Buildkite's rate limits apply per minute, used when a response doesn't say when the limit resets
+    private static final long RATE_LIMIT_WINDOW_SECONDS = 60;
+    private static final Pattern NEXT_PAGE_LINK = Pattern.compile("<([^>]+)>\\s*;\\s*rel=\"next\"");
+    private static final Header CONTENT_TYPE = new BasicHeader("Content-Type", "application/json");
+    private static final int CREATE_ATTEMPTS = 3;
+    private static final long CREATE_LOOKUP_DELAY_MILLIS = 2000;
+
+    private final String apiBaseUrl;
+    private final BuildkiteTokenPool tokens;
+    private Deadline deadline = Deadline.none();
+    private boolean prefetchPages;
+    // Clients mostly talk to a single pipeline, so the last one used is all that's worth keeping
+    private volatile PipelineEndpoint lastEndpoint;
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
 
     public BuildkiteApiClient(Secret apiToken) {
-        this.apiToken = apiToken;
-        this.httpClient = HttpClient.getCloseableHttpClient();
+        this(BuildkiteTokenPool.of(apiToken));
+    }
+
+    public BuildkiteApiClient(BuildkiteTokenPool tokens) {
+        this(tokens, BuildkiteGlobalConfiguration.get().getApiBaseUrl());
+    }
+
+    /**
+     * For clients created away from the controller's configuration, e.g. on an agent.
+     */
+    public BuildkiteApiClient(Secret apiToken, String apiBaseUrl) {
+        this(BuildkiteTokenPool.of(apiToken), apiBaseUrl);
+    }
+
+    public BuildkiteApiClient(BuildkiteTokenPool tokens, String apiBaseUrl) {
+        this.apiBaseUrl = apiBaseUrl;
+        this.tokens = tokens;
+    }
+
+    /**
+     * @return the state of the connection pool shared by all API clients, or {@code null} if none was created yet
+     */
+    public static PoolStats getConnectionPoolStats() {
+        return HttpClient.getPoolStats();
+    }
+
+    /**
+     * Bounds the connect and response timeouts of all following requests by the given deadline.
+     */
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
     }
 
+    /**
+     * Whether list methods request the next page while the caller is still consuming the current one.
+     * Faster for callers that read everything, but may request one page more than a caller that stops early needs.
+     */
+    public void setPrefetchPages(boolean prefetchPages) {
+        this.prefetchPages = prefetchPages;
+    }
+
+    /**
+     * @return the number of request body bytes sent by this client
+     */
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    /**
+     * @return the number of response body bytes received by this client, as far as responses declared their length
+     */
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    /**
+     * Creates a build. If the request carries an {@link CreateBuildRequest#getIdempotencyKey() idempotency key} and fails
+     * without telling whether the build was created, i.e. with a transport error or a server error, the build is looked up
+     * by its key and only created again if it isn't found.
+     */
     public BuildkiteBuild createBuild(String organization, String pipeline, CreateBuildRequest createBuildRequest) throws BuildkiteApiException {
-        var url = String.format(
-                "%s/organizations/%s/pipelines/%s/builds",
-                BUILDKITE_API_BASE,
+        String idempotencyKey = createBuildRequest.getIdempotencyKey();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return postBuild(organization, pipeline, createBuildRequest);
+            } catch (RuntimeException e) {
+                if (idempotencyKey == null || attempt >= CREATE_ATTEMPTS || !isAmbiguous(e) || this.deadline.isExpired()) {
+                    throw e;
+                }
+
+                LOGGER.log(Level.INFO, String.format(
+                        "Creating a build of %s/%s failed without a clear outcome, looking it up by its idempotency key",
+                        organization,
+                        pipeline
+                ), e);
+
+                BuildkiteBuild created = findCreatedBuild(organization, pipeline, idempotencyKey, attempt, e);
+                if (created != null) {
+                    return created;
+                }
+            }
+        }
+    }
+
+    private BuildkiteBuild findCreatedBuild(String organization, String pipeline, String idempotencyKey, int attempt, RuntimeException failure) {
+        try {
+            // Gives Buildkite a moment to list a build it accepted before the response was lost
+            sleepMillis(this.deadline.clampMillis(CREATE_LOOKUP_DELAY_MILLIS * attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw failure;
+        }
+
+        try (Stream<BuildkiteBuild> builds = streamBuilds(
                 organization,
-                pipeline
-        );
+                pipeline,
+                Map.of(String.format("meta_data[%s]", CreateBuildRequest.IDEMPOTENCY_KEY), idempotencyKey)
+        )) {
+            return builds.findFirst().orElse(null);
+        } catch (RuntimeException e) {
+            // Without knowing whether the build exists, creating it again could duplicate it
+            failure.addSuppressed(e);
+            throw failure;
+        }
+    }
+
+    private static boolean isAmbiguous(RuntimeException e) {
+        if (e instanceof BuildkiteApiException apiException) {
+            return apiException.getStatusCode() >= 500;
+        }
+        return e.getCause() instanceof IOException;
+    }
 
-        var request = new HttpPost(url);
-        request.setHeader("Authorization", String.format("Bearer %s", this.apiToken.getPlainText()));
-        request.setHeader("Content-Type", "application/json");
+    // Allow sleep delays to be overridden in testing
+    protected void sleepMillis(long millis) throws InterruptedException {
+        Thread.sleep(millis);
+    }
+
+    private BuildkiteBuild postBuild(String organization, String pipeline, CreateBuildRequest createBuildRequest) throws BuildkiteApiException {
+        var request = new HttpPost(pipelineEndpoint(organization, pipeline).builds());
+        prepareRequest(request);
 
         String requestJson = null;
         try {
@@ -48,34 +194,292 @@ public class BuildkiteApiClient {
 
         request.setEntity(new StringEntity(requestJson, StandardCharsets.UTF_8));
 
-        try (CloseableHttpResponse response = this.httpClient.execute(request)) {
+        try (CloseableHttpResponse response = execute(ApiEndpoint.CREATE_BUILD, organization, pipeline, request)) {
             return handleResponse(response);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Reads the build through the {@link BuildkiteBuildCache}: a finished build is only requested once,
+     * and a build in progress at most every few seconds however many callers poll it.
+     *
+     * @throws BuildkiteInterruptedException if interrupted while waiting for another caller's request of the build
+     */
     public BuildkiteBuild getBuild(String organization, String pipeline, int buildNumber) throws BuildkiteApiException {
+        return BuildkiteBuildCache.get().get(
+                buildCacheKey(organization, pipeline, buildNumber),
+                () -> fetchBuild(organization, pipeline, buildNumber)
+        );
+    }
+
+    /**
+     * Requests the build's current state, bypassing and then updating the cache {@link #getBuild} reads from.
+     */
+    public BuildkiteBuild refreshBuild(String organization, String pipeline, int buildNumber) throws BuildkiteApiException {
+        BuildkiteBuild build = fetchBuild(organization, pipeline, buildNumber);
+        BuildkiteBuildCache.get().put(buildCacheKey(organization, pipeline, buildNumber), build);
+        return build;
+    }
+
+    private BuildkiteBuild fetchBuild(String organization, String pipeline, int buildNumber) throws BuildkiteApiException {
+        var request = getBuildRequest(organization, pipeline, buildNumber);
+
+        try (CloseableHttpResponse response = execute(ApiEndpoint.GET_BUILD, organization, pipeline, request)) {
+            return handleResponse(response);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // The poll path, separate from executing it so its cost can be measured on its own
+    HttpGet getBuildRequest(String organization, String pipeline, int buildNumber) {
+        var request = new HttpGet(pipelineEndpoint(organization, pipeline).build(buildNumber));
+        prepareRequest(request);
+        return request;
+    }
+
+    public BuildkiteBuild cancelBuild(String organization, String pipeline, int buildNumber) throws BuildkiteApiException {
+        var request = new HttpPut(pipelineEndpoint(organization, pipeline).build(buildNumber, "/cancel"));
+        prepareRequest(request);
+
+        try (CloseableHttpResponse response = execute(ApiEndpoint.CANCEL_BUILD, organization, pipeline, request)) {
+            BuildkiteBuild build = handleResponse(response);
+            BuildkiteBuildCache.get().put(buildCacheKey(organization, pipeline, buildNumber), build);
+            return build;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public BuildkiteJob retryJob(String organization, String pipeline, int buildNumber, String jobId) throws BuildkiteApiException {
+        var request = new HttpPut(pipelineEndpoint(organization, pipeline).build(
+                buildNumber,
+                String.format("/jobs/%s/retry", Util.rawEncode(jobId))
+        ));
+        prepareRequest(request);
+
+        try (CloseableHttpResponse response = execute(ApiEndpoint.RETRY_JOB, organization, pipeline, request)) {
+            checkResponse(response);
+            // The build runs again, so a cached finished state no longer holds
+            BuildkiteBuildCache.get().invalidate(buildCacheKey(organization, pipeline, buildNumber));
+
+            return jsonToBuildkiteJob(MAPPER.readTree(response.getEntity().getContent()));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public List<BuildkiteArtifact> listArtifacts(String organization, String pipeline, int buildNumber) throws BuildkiteApiException {
+        try (Stream<BuildkiteArtifact> artifacts = streamArtifacts(organization, pipeline, buildNumber)) {
+            return artifacts.toList();
+        }
+    }
+
+    /**
+     * @return the build's artifacts, requesting each page as the stream reaches it
+     */
+    public Stream<BuildkiteArtifact> streamArtifacts(String organization, String pipeline, int buildNumber) throws BuildkiteApiException {
+        var url = pipelineEndpoint(organization, pipeline).build(buildNumber, "/artifacts?per_page=" + PAGE_SIZE);
+
+        return paginate(ApiEndpoint.LIST_ARTIFACTS, organization, pipeline, url, this::jsonToBuildkiteArtifact);
+    }
+
+    /**
+     * @param filters query parameters narrowing the builds, e.g. {@code branch}, {@code commit} or {@code state}
+     * @return the pipeline's builds, newest first, requesting each page as the stream reaches it
+     */
+    public Stream<BuildkiteBuild> streamBuilds(String organization, String pipeline, Map<String, String> filters) throws BuildkiteApiException {
+        var url = new StringBuilder(pipelineEndpoint(organization, pipeline).builds())
+                .append("?per_page=").append(PAGE_SIZE);
+        filters.forEach((name, value) -> url.append('&').append(Util.rawEncode(name)).append('=').append(Util.rawEncode(value)));
+
+        return paginate(ApiEndpoint.LIST_BUILDS, organization, pipeline, url.toString(), this::jsonToBuildkiteBuild);
+    }
+
+    /**
+     * Resolves the short-lived, pre-signed storage URL of an artifact.
+     * The URL carries its own authorization, so the download itself can happen anywhere (e.g. on an agent)
+     * without the API token and without the bytes passing through this JVM.
+     */
+    public String getArtifactDownloadUrl(BuildkiteArtifact artifact) throws BuildkiteApiException {
+        var request = new HttpGet(artifact.getDownloadUrl());
+        prepareRequest(request);
+        request.setConfig(requestConfig().setRedirectsEnabled(false).build());
+
+        try (CloseableHttpResponse response = execute(ApiEndpoint.ARTIFACT_DOWNLOAD_URL, null, null, request)) {
+            checkResponse(response);
+
+            Header location = response.getFirstHeader("Location");
+            if (location != null) {
+                return location.getValue();
+            }
+
+            JsonNode json = MAPPER.readTree(response.getEntity().getContent());
+            return json.get("url").asText();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private String buildCacheKey(String organization, String pipeline, int buildNumber) {
+        return BuildkiteBuildCache.key(this.apiBaseUrl, this.tokens.getFingerprint(), organization, pipeline, buildNumber);
+    }
+
+    PipelineEndpoint pipelineEndpoint(String organization, String pipeline) {
+        PipelineEndpoint endpoint = this.lastEndpoint;
+        if (endpoint == null || !endpoint.isFor(organization, pipeline)) {
+            endpoint = new PipelineEndpoint(this.apiBaseUrl, organization, pipeline);
+            this.lastEndpoint = endpoint;
+        }
+        return endpoint;
+    }
+
+    private CloseableHttpResponse execute(ApiEndpoint endpoint, String organization, String pipeline, HttpUriRequestBase request) throws IOException {
+        var event = new BuildkiteApiCallEvent();
+        event.begin();
+        BuildkiteTokenPool.Token token = endpoint.isMutating() ? this.tokens.primary() : this.tokens.leastLoaded();
+        token.getBudget().acquire();
+        request.setHeader(token.getAuthorizationHeader());
+
+        long startedAt = System.nanoTime();
+        bytesSent.add(request.getEntity() != null ? Math.max(request.getEntity().getContentLength(), 0) : 0);
+
+        try {
+            // Looked up per request, as the shared client is replaced and later closed when its settings change,
+            // which would otherwise fail every step that is still waiting on a build
+            CloseableHttpResponse response = HttpClient.getCloseableHttpClient().execute(request);
+            BuildkiteMetrics.get().recordResponse(endpoint, response.getCode(), elapsedMillis(startedAt));
+            recordRateLimit(response, token);
+            event.statusCode = response.getCode();
+            event.responseBytes = response.getEntity() != null ? response.getEntity().getContentLength() : 0;
+            bytesReceived.add(Math.max(event.responseBytes, 0));
+            return response;
+        } catch (IOException e) {
+            BuildkiteMetrics.get().recordError(endpoint, elapsedMillis(startedAt));
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.endpoint = endpoint.getMetricName();
+                event.organization = organization;
+                event.pipeline = pipeline;
+                event.requestBytes = request.getEntity() != null ? request.getEntity().getContentLength() : 0;
+                event.commit();
+            }
+        }
+    }
+
+    private static long elapsedMillis(long startedAtNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAtNanos);
+    }
+
+    private static void recordRateLimit(CloseableHttpResponse response, BuildkiteTokenPool.Token token) {
+        Header limit = response.getFirstHeader("RateLimit-Limit");
+        Header remaining = response.getFirstHeader("RateLimit-Remaining");
+        Header reset = response.getFirstHeader("RateLimit-Reset");
+        if (limit == null || remaining == null) {
+            return;
+        }
+
+        try {
+            BuildkiteMetrics.get().recordRateLimit(Long.parseLong(limit.getValue()), Long.parseLong(remaining.getValue()));
+            token.getBudget().record(
+                    Long.parseLong(remaining.getValue()),
+                    reset != null ? Long.parseLong(reset.getValue()) : RATE_LIMIT_WINDOW_SECONDS
+            );
+        } catch (NumberFormatException e) {
+            // Not worth failing a request over a malformed header
+        }
+    }
+
+    private void prepareRequest(HttpUriRequestBase request) {
+        request.setHeader(CONTENT_TYPE);
+
+        if (this.deadline.isSet()) {
+            request.setConfig(requestConfig().build());
+        }
+    }
+
+    @SuppressWarnings("deprecation") // A per-request connect timeout is the only way to bound a single connect
+    private RequestConfig.Builder requestConfig() {
+        Timeout timeout = Timeout.ofMilliseconds(
+                Math.max(1, this.deadline.clampMillis(TimeUnit.SECONDS.toMillis(BuildkiteGlobalConfiguration.get().getTimeoutInSeconds())))
+        );
+
+        return RequestConfig.custom()
+                .setConnectionRequestTimeout(timeout)
+                .setConnectTimeout(timeout)
+                .setResponseTimeout(timeout);
+    }
+
+    /**
+     * @return the slugs of the organizations the token has access to
+     */
+    public List<String> listOrganizations() throws BuildkiteApiException {
+        var url = String.format("%s/organizations?per_page=%d", this.apiBaseUrl, PAGE_SIZE);
+
+        return listSlugs(ApiEndpoint.LIST_ORGANIZATIONS, null, url);
+    }
+
+    /**
+     * @return the slugs of the organization's pipelines
+     */
+    public List<String> listPipelines(String organization) throws BuildkiteApiException {
         var url = String.format(
-                "%s/organizations/%s/pipelines/%s/builds/%s",
-                BUILDKITE_API_BASE,
-                organization,
-                pipeline,
-                buildNumber
+                "%s/organizations/%s/pipelines?per_page=%d",
+                this.apiBaseUrl,
+                Util.rawEncode(organization),
+                PAGE_SIZE
         );
 
+        return listSlugs(ApiEndpoint.LIST_PIPELINES, organization, url);
+    }
+
+    private List<String> listSlugs(ApiEndpoint endpoint, String organization, String url) throws BuildkiteApiException {
+        try (Stream<String> slugs = paginate(endpoint, organization, null, url, json -> json.path("slug").asText())) {
+            return slugs.toList();
+        }
+    }
+
+    /**
+     * Lazily lists a paginated endpoint. Each page is requested when the stream reaches it,
+     * or while the previous page is consumed if {@link #setPrefetchPages(boolean) prefetching}.
+     */
+    private <T> Stream<T> paginate(ApiEndpoint endpoint, String organization, String pipeline, String firstUrl, Function<JsonNode, T> mapper) {
+        return PagedIterator.stream(
+                firstUrl,
+                url -> fetchPage(endpoint, organization, pipeline, url, mapper),
+                this.prefetchPages ? Timer.get() : null
+        );
+    }
+
+    private <T> PagedIterator.Page<T> fetchPage(ApiEndpoint endpoint, String organization, String pipeline, String url, Function<JsonNode, T> mapper) {
         var request = new HttpGet(url);
-        request.setHeader("Authorization", String.format("Bearer %s", this.apiToken.getPlainText()));
-        request.setHeader("Content-Type", "application/json");
+        prepareRequest(request);
 
-        try (CloseableHttpResponse response = this.httpClient.execute(request)) {
-            return handleResponse(response);
+        try (CloseableHttpResponse response = execute(endpoint, organization, pipeline, request)) {
+            checkResponse(response);
+
+            var items = new ArrayList<T>(PAGE_SIZE);
+            for (JsonNode json : MAPPER.readTree(response.getEntity().getContent())) {
+                items.add(mapper.apply(json));
+            }
+
+            return new PagedIterator.Page<>(items, nextPageUrl(response));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
     private BuildkiteBuild handleResponse(CloseableHttpResponse response) throws BuildkiteApiException {
+        checkResponse(response);
+
+        return responseToBuildkiteBuild(response);
+    }
+
+    private void checkResponse(CloseableHttpResponse response) throws BuildkiteApiException {
         int statusCode = response.getCode();
 
         if (statusCode < 200 || statusCode >= 400) {
@@ -88,29 +492,110 @@ public class BuildkiteApiClient {
                 throw new BuildkiteApiException(statusCode, "", e);
             }
         }
+    }
 
-        return responseToBuildkiteBuild(response);
+    private String nextPageUrl(CloseableHttpResponse response) {
+        Header link = response.getFirstHeader("Link");
+        if (link == null) {
+            return null;
+        }
+
+        Matcher matcher = NEXT_PAGE_LINK.matcher(link.getValue());
+        return matcher.find() ? matcher.group(1) : null;
     }
 
     private BuildkiteBuild responseToBuildkiteBuild(CloseableHttpResponse response) {
-        var builder = BuildkiteBuild.builder();
-
         try {
-            JsonNode json = MAPPER.readTree(response.getEntity().getContent());
-
-            builder
-                    .id(json.get("id").asText())
-                    .number(json.get("number").asInt())
-                    .state(json.get("state").asText())
-                    .webUrl(json.get("web_url").asText())
-                    .commit(json.get("commit").asText())
-                    .branch(json.get("branch").asText())
-                    .url(json.get("url").asText());
-
+            return jsonToBuildkiteBuild(MAPPER.readTree(response.getEntity().getContent()));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+    }
+
+    private BuildkiteBuild jsonToBuildkiteBuild(JsonNode json) {
+        var jobs = new ArrayList<BuildkiteJob>();
+        for (JsonNode jobJson : json.path("jobs")) {
+            jobs.add(jsonToBuildkiteJob(jobJson));
+        }
+
+        return BuildkiteBuild.builder()
+                .id(json.path("id").asText(null))
+                .number(json.path("number").asInt())
+                .state(json.path("state").asText(null))
+                .webUrl(json.path("web_url").asText(null))
+                .commit(json.path("commit").asText(null))
+                .branch(json.path("branch").asText(null))
+                .url(json.path("url").asText(null))
+                .createdAt(parseTimestamp(json.path("created_at")))
+                .scheduledAt(parseTimestamp(json.path("scheduled_at")))
+                .startedAt(parseTimestamp(json.path("started_at")))
+                .finishedAt(parseTimestamp(json.path("finished_at")))
+                .jobs(jobs)
+                .build();
+    }
+
+    private static Instant parseTimestamp(JsonNode json) {
+        String timestamp = json.asText(null);
+        return timestamp == null || timestamp.isEmpty() ? null : Instant.parse(timestamp);
+    }
+
+    private BuildkiteJob jsonToBuildkiteJob(JsonNode json) {
+        return BuildkiteJob.builder()
+                .id(json.path("id").asText())
+                .name(json.path("name").asText(null))
+                .type(json.path("type").asText())
+                .state(json.path("state").asText(null))
+                .retried(json.path("retried").asBoolean())
+                .softFailed(json.path("soft_failed").asBoolean())
+                .build();
+    }
+
+    private BuildkiteArtifact jsonToBuildkiteArtifact(JsonNode json) {
+        return BuildkiteArtifact.builder()
+                .id(json.path("id").asText())
+                .jobId(json.path("job_id").asText())
+                .path(json.path("path").asText())
+                .state(json.path("state").asText())
+                .fileSize(json.path("file_size").asLong())
+                .sha1sum(json.path("sha1sum").asText(null))
+                .downloadUrl(json.path("download_url").asText())
+                .build();
+    }
+
+    /**
+     * The URLs of one pipeline's builds. The organization and pipeline are encoded once, so the URL of each
+     * request is a single concatenation.
+     */
+    static final class PipelineEndpoint {
+        private final String organization;
+        private final String pipeline;
+        private final String buildsUrl;
+
+        PipelineEndpoint(String apiBaseUrl, String organization, String pipeline) {
+            this.organization = organization;
+            this.pipeline = pipeline;
+            this.buildsUrl = String.format(
+                    "%s/organizations/%s/pipelines/%s/builds",
+                    apiBaseUrl,
+                    Util.rawEncode(String.valueOf(organization)),
+                    Util.rawEncode(String.valueOf(pipeline))
+            );
+        }
+
+        boolean isFor(String organization, String pipeline) {
+            return Objects.equals(this.organization, organization) && Objects.equals(this.pipeline, pipeline);
+        }
 
-        return builder.build();
+        String builds() {
+            return buildsUrl;
+        }
+
+        String build(int number) {
+            return buildsUrl + '/' + number;
+        }
+
+        String build(int number, String suffix) {
+            return buildsUrl + '/' + number + suffix;
+        }
     }
 }
@@ -0,0 +1,20 @@
+package io.jenkins.plugins.buildkite.api_client;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class BuildkiteArtifact {
+    private String id;
+    private String jobId;
+    private String path;
+    private String state;
+    private long fileSize;
+    private String sha1sum;
+    private String downloadUrl;
+
+    public boolean uploadFinished() {
+        return "finished".equals(state);
+    }
+}
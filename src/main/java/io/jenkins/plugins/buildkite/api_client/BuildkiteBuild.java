@@ -3,9 +3,15 @@ package io.jenkins.plugins.buildkite.api_client;
 import lombok.Builder;
 import lombok.Data;
 
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.List;
+
 @Data
 @Builder
-public class BuildkiteBuild {
+public class BuildkiteBuild implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private String id;
     private int number;
     private String commit;
@@ -14,12 +20,25 @@ public class BuildkiteBuild {
     private String url;
     private String webUrl;
     private String message;
+    private Instant createdAt;
+    private Instant scheduledAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    @Builder.Default private List<BuildkiteJob> jobs = List.of();
+
+    public BuildkiteBuildState getBuildState() {
+        return BuildkiteBuildState.of(state);
+    }
 
     public boolean buildFinished() {
-        return "passed".equals(state) || "failed".equals(state) || "canceled".equals(state) || "blocked".equals(state);
+        return getBuildState().isFinished();
     }
 
     public boolean buildPassed() {
-        return "passed".equals(state);
+        return getBuildState().isPassed();
+    }
+
+    public List<BuildkiteJob> retriableJobs() {
+        return jobs.stream().filter(BuildkiteJob::retriable).toList();
     }
 }
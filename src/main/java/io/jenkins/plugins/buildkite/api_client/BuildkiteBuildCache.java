@@ -0,0 +1,143 @@
+package io.jenkins.plugins.buildkite.api_client;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Builds read through {@link BuildkiteApiClient#getBuild}, shared by every client in the JVM, so a build that
+ * several steps, runs or scripts look at is requested once rather than by each of them.
+ * <p>
+ * Finished builds are kept until they are evicted as least recently used, builds in progress for {@link #RUNNING_TTL}.
+ * Concurrent misses for the same build wait for a single request. Keys include the tokens' fingerprint, so a build is
+ * only shared between callers using the same credentials, who are allowed to read it anyway.
+ */
+final class BuildkiteBuildCache {
+    static final Duration RUNNING_TTL = Duration.ofSeconds(5);
+    static final int MAX_ENTRIES = 1000;
+
+    private static final BuildkiteBuildCache INSTANCE = new BuildkiteBuildCache(System::currentTimeMillis);
+
+    private final LongSupplier clockMillis;
+    private final Map<String, Load> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    BuildkiteBuildCache(LongSupplier clockMillis) {
+        this.clockMillis = clockMillis;
+    }
+
+    static BuildkiteBuildCache get() {
+        return INSTANCE;
+    }
+
+    static String key(String apiBaseUrl, String tokenFingerprint, String organization, String pipeline, int number) {
+        return String.format("%s@%s/%s/%s#%d", tokenFingerprint, apiBaseUrl, organization, pipeline, number);
+    }
+
+    BuildkiteBuild get(String key, Supplier<BuildkiteBuild> loader) {
+        BuildkiteBuild cached = fresh(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        var loading = new Load();
+        Load pending = inFlight.putIfAbsent(key, loading);
+        if (pending != null) {
+            return await(pending.result);
+        }
+
+        try {
+            // Another thread may have finished loading between the lookup and claiming the key
+            BuildkiteBuild build = fresh(key);
+            if (build == null) {
+                build = loader.get();
+                synchronized (entries) {
+                    // The build was invalidated while it was being requested, so the response may predate the change
+                    if (!loading.invalidated) {
+                        entries.put(key, new Entry(build, clockMillis.getAsLong()));
+                    }
+                }
+            }
+            loading.result.complete(build);
+            return build;
+        } catch (RuntimeException | Error e) {
+            loading.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, loading);
+        }
+    }
+
+    void put(String key, BuildkiteBuild build) {
+        synchronized (entries) {
+            entries.put(key, new Entry(build, clockMillis.getAsLong()));
+        }
+    }
+
+    /**
+     * Drops the build, and keeps a request already in flight from caching its response. Callers that start
+     * reading the build from now on send a new request rather than waiting for that one.
+     */
+    void invalidate(String key) {
+        synchronized (entries) {
+            entries.remove(key);
+
+            Load loading = inFlight.remove(key);
+            if (loading != null) {
+                loading.invalidated = true;
+            }
+        }
+    }
+
+    void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private BuildkiteBuild fresh(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            return entry != null && entry.isFresh(clockMillis.getAsLong()) ? entry.build : null;
+        }
+    }
+
+    private static BuildkiteBuild await(CompletableFuture<BuildkiteBuild> pending) {
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BuildkiteInterruptedException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static final class Load {
+        private final CompletableFuture<BuildkiteBuild> result = new CompletableFuture<>();
+        // Guarded by the entries lock
+        private boolean invalidated;
+    }
+
+    private record Entry(BuildkiteBuild build, long fetchedAtMillis) {
+        boolean isFresh(long nowMillis) {
+            return build.buildFinished() || nowMillis - fetchedAtMillis < RUNNING_TTL.toMillis();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.jenkins.plugins.buildkite.api_client;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The states of a Buildkite build, as named by the API.
+ * States the plugin doesn't know yet map to {@link #UNKNOWN}, which is treated as still in progress.
+ */
+public enum BuildkiteBuildState {
+    CREATING("creating", false, false),
+    SCHEDULED("scheduled", false, false),
+    RUNNING("running", false, false),
+    FAILING("failing", false, false),
+    CANCELING("canceling", false, false),
+    PASSED("passed", true, true),
+    FAILED("failed", true, false),
+    CANCELED("canceled", true, false),
+    // A blocked build waits for someone to unblock it, which the step doesn't wait for
+    BLOCKED("blocked", true, false),
+    SKIPPED("skipped", true, false),
+    NOT_RUN("not_run", true, false),
+    UNKNOWN("unknown", false, false);
+
+    private static final Map<String, BuildkiteBuildState> BY_NAME = new HashMap<>();
+
+    static {
+        for (BuildkiteBuildState state : values()) {
+            BY_NAME.put(state.apiName, state);
+        }
+    }
+
+    private final String apiName;
+    private final boolean finished;
+    private final boolean passed;
+
+    BuildkiteBuildState(String apiName, boolean finished, boolean passed) {
+        this.apiName = apiName;
+        this.finished = finished;
+        this.passed = passed;
+    }
+
+    public static BuildkiteBuildState of(String apiName) {
+        return apiName == null ? UNKNOWN : BY_NAME.getOrDefault(apiName, UNKNOWN);
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public boolean isPassed() {
+        return passed;
+    }
+
+    @Override
+    public String toString() {
+        return apiName;
+    }
+}
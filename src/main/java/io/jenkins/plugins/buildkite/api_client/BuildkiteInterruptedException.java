@@ -0,0 +1,11 @@
+package io.jenkins.plugins.buildkite.api_client;
+
+/**
+ * Thrown when the calling thread is interrupted while it waits on a request, e.g. because the step it runs for was
+ * stopped. The thread's interrupt status is set again, so callers can treat it like an {@link InterruptedException}.
+ */
+public class BuildkiteInterruptedException extends RuntimeException {
+    public BuildkiteInterruptedException(InterruptedException cause) {
+        super("Interrupted while waiting for a Buildkite API request", cause);
+    }
+}
@@ -0,0 +1,26 @@
+package io.jenkins.plugins.buildkite.api_client;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serializable;
+
+@Data
+@Builder
+public class BuildkiteJob implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String id;
+    private String name;
+    private String type;
+    private String state;
+    private boolean retried;
+    private boolean softFailed;
+
+    public boolean retriable() {
+        return "script".equals(type)
+                && ("failed".equals(state) || "timed_out".equals(state))
+                && !retried
+                && !softFailed;
+    }
+}
@@ -0,0 +1,160 @@
+package io.jenkins.plugins.buildkite.api_client;
+
+import hudson.util.Secret;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.message.BasicHeader;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * API tokens used together to spread requests over their rate limits.
+ * <p>
+ * Read requests go to the token with the most remaining rate limit budget. Requests that change state in Buildkite
+ * always use the primary token, the first one, so that the audit trail shows a single actor.
+ * Budgets are shared by all pools using the same credentials, as the rate limit applies to the token, not the client.
+ */
+public final class BuildkiteTokenPool {
+    private static final Map<String, RateLimitBudget> BUDGETS = new ConcurrentHashMap<>();
+
+    private final List<Token> tokens;
+    private final String fingerprint;
+
+    private BuildkiteTokenPool(List<Token> tokens) {
+        if (tokens.isEmpty()) {
+            throw new IllegalArgumentException("A token pool needs at least one token");
+        }
+        this.tokens = List.copyOf(tokens);
+        this.fingerprint = fingerprint(this.tokens);
+    }
+
+    public static BuildkiteTokenPool of(Secret token) {
+        return new BuildkiteTokenPool(List.of(new Token(token, new RateLimitBudget())));
+    }
+
+    /**
+     * @param tokensByCredentialsId the tokens in order, the first being the primary one
+     */
+    public static BuildkiteTokenPool of(Map<String, Secret> tokensByCredentialsId) {
+        var tokens = new ArrayList<Token>();
+        tokensByCredentialsId.forEach((credentialsId, secret) ->
+                tokens.add(new Token(secret, BUDGETS.computeIfAbsent(credentialsId, id -> new RateLimitBudget())))
+        );
+        return new BuildkiteTokenPool(tokens);
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    public Secret getPrimaryToken() {
+        return primary().getSecret();
+    }
+
+    /**
+     * @return a digest of the pool's tokens, identifying what the pool can read without revealing the tokens
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    private static String fingerprint(List<Token> tokens) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        for (Token token : tokens) {
+            digest.update(token.getSecret().getPlainText().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+    Token primary() {
+        return tokens.get(0);
+    }
+
+    Token leastLoaded() {
+        Token selected = tokens.get(0);
+        long selectedBudget = selected.budget.available();
+
+        for (int i = 1; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            long budget = token.budget.available();
+            if (budget > selectedBudget) {
+                selected = token;
+                selectedBudget = budget;
+            }
+        }
+
+        return selected;
+    }
+
+    static final class Token {
+        private final Secret secret;
+        private final RateLimitBudget budget;
+        // Built on first use, as every request of the token sends the same header
+        private volatile Header authorizationHeader;
+
+        private Token(Secret secret, RateLimitBudget budget) {
+            this.secret = secret;
+            this.budget = budget;
+        }
+
+        Secret getSecret() {
+            return secret;
+        }
+
+        Header getAuthorizationHeader() {
+            Header header = authorizationHeader;
+            if (header == null) {
+                header = new BasicHeader("Authorization", "Bearer " + secret.getPlainText());
+                authorizationHeader = header;
+            }
+            return header;
+        }
+
+        RateLimitBudget getBudget() {
+            return budget;
+        }
+    }
+
+    /**
+     * What is left of a token's rate limit, as of its last response. The count is decremented when a request
+     * is sent, so that concurrent requests don't all pick the same token before the responses are in.
+     */
+    static final class RateLimitBudget {
+        private final AtomicLong remaining = new AtomicLong(-1);
+        private volatile long resetAtMillis;
+
+        /**
+         * @return the remaining requests, or {@link Long#MAX_VALUE} while unknown or after the limit has reset
+         */
+        long available() {
+            long current = remaining.get();
+            if (current < 0 || System.currentTimeMillis() >= resetAtMillis) {
+                return Long.MAX_VALUE;
+            }
+            return current;
+        }
+
+        void acquire() {
+            remaining.getAndUpdate(current -> current > 0 ? current - 1 : current);
+        }
+
+        void record(long remaining, long resetInSeconds) {
+            this.resetAtMillis = System.currentTimeMillis() + resetInSeconds * 1000;
+            this.remaining.set(remaining);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package io.jenkins.plugins.buildkite.api_client;
+
+import hudson.Extension;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.PeriodicWork;
+import hudson.util.NamingThreadFactory;
+import io.jenkins.plugins.buildkite.BuildkiteGlobalConfiguration;
+import jenkins.util.Timer;
+import org.apache.hc.client5.http.classic.methods.HttpHead;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Opens pooled connections to the Buildkite API before the first step needs them, so DNS resolution,
+ * connecting, the TLS handshake and proxy authentication aren't paid by the first builds after a restart.
+ * The connections are then kept alive by repeating the warm-up periodically.
+ */
+public final class ConnectionWarmer {
+    private static final Logger LOGGER = Logger.getLogger(ConnectionWarmer.class.getName());
+
+    private ConnectionWarmer() {
+    }
+
+    @Initializer(after = InitMilestone.JOB_CONFIG_ADAPTED)
+    public static void warmUpAtStartup() {
+        if (BuildkiteGlobalConfiguration.get().getWarmUpConnections() > 0) {
+            // Connecting may be slow, which is exactly why it shouldn't hold up startup
+            Timer.get().submit(ConnectionWarmer::warmUp);
+        }
+    }
+
+    /**
+     * @return the number of connections that completed a request
+     */
+    static int warmUp() {
+        var configuration = BuildkiteGlobalConfiguration.get();
+        int connections = Math.min(configuration.getWarmUpConnections(), configuration.getMaxConnections());
+
+        return warmUp(HttpClient.getCloseableHttpClient(), configuration.getApiBaseUrl(), connections);
+    }
+
+    static int warmUp(CloseableHttpClient client, String url, int connections) {
+        if (connections < 1) {
+            return 0;
+        }
+
+        // Requests only get a connection of their own while they run concurrently
+        ExecutorService executor = Executors.newFixedThreadPool(
+                connections,
+                new NamingThreadFactory(Executors.defaultThreadFactory(), "BuildkiteConnectionWarmUp")
+        );
+
+        try {
+            var requests = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < connections; i++) {
+                requests.add(executor.submit(() -> ping(client, url)));
+            }
+
+            int warmed = 0;
+            for (Future<Boolean> request : requests) {
+                try {
+                    if (request.get()) {
+                        warmed++;
+                    }
+                } catch (ExecutionException e) {
+                    LOGGER.log(Level.FINE, "Failed to warm up connection to " + url, e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            LOGGER.log(Level.FINE, "Warmed up {0} of {1} connections to {2}", new Object[]{warmed, connections, url});
+            return warmed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static boolean ping(CloseableHttpClient client, String url) {
+        // Any response will do, the request is only made for the connection it leaves in the pool
+        try {
+            return client.execute(new HttpHead(url), response -> {
+                EntityUtils.consume(response.getEntity());
+                return true;
+            });
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to warm up connection to " + url, e);
+            return false;
+        }
+    }
+
+    @Extension
+    public static class KeepAlive extends PeriodicWork {
+        @Override
+        public long getRecurrencePeriod() {
+            // Below the idle timeout of common load balancers and proxies
+            return TimeUnit.SECONDS.toMillis(45);
+        }
+
+        @Override
+        protected void doRun() {
+            if (BuildkiteGlobalConfiguration.get().getWarmUpConnections() > 0) {
+                warmUp();
+            }
+        }
+    }
+}
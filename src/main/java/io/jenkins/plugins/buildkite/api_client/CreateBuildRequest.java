@@ -1,12 +1,37 @@
 package io.jenkins.plugins.buildkite.api_client;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Builder;
 import lombok.Data;
 
+import java.io.Serializable;
+import java.util.Map;
+
 @Data
 @Builder
-public class CreateBuildRequest {
+public class CreateBuildRequest implements Serializable {
+    private static final long serialVersionUID = 1L;
+    /**
+     * The meta-data key tagging a build with a value unique to the request, so that a build created by a request
+     * whose response was lost can be found instead of created twice.
+     */
+    public static final String IDEMPOTENCY_KEY = "jenkins_idempotency_key";
+
     private String commit;
     private String branch;
     private String message;
+
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Map<String, String> env;
+
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    @JsonProperty("meta_data")
+    private Map<String, String> metaData;
+
+    @JsonIgnore
+    public String getIdempotencyKey() {
+        return metaData == null ? null : metaData.get(IDEMPOTENCY_KEY);
+    }
 }
@@ -0,0 +1,49 @@
+package io.jenkins.plugins.buildkite.api_client;
+
+import java.time.Duration;
+
+/**
+ * An absolute point in time by which a piece of work has to be done.
+ * Based on {@link System#nanoTime()}, so it isn't affected by wall clock changes.
+ */
+public final class Deadline {
+    private static final Deadline NONE = new Deadline(0, false);
+
+    private final long expiresAtNanos;
+    private final boolean set;
+
+    private Deadline(long expiresAtNanos, boolean set) {
+        this.expiresAtNanos = expiresAtNanos;
+        this.set = set;
+    }
+
+    public static Deadline none() {
+        return NONE;
+    }
+
+    public static Deadline after(Duration duration) {
+        return new Deadline(System.nanoTime() + duration.toNanos(), true);
+    }
+
+    public boolean isSet() {
+        return set;
+    }
+
+    public boolean isExpired() {
+        return set && System.nanoTime() - expiresAtNanos >= 0;
+    }
+
+    public long remainingMillis() {
+        if (!set) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, Duration.ofNanos(expiresAtNanos - System.nanoTime()).toMillis());
+    }
+
+    /**
+     * @return the given timeout, shortened so it doesn't extend past this deadline
+     */
+    public long clampMillis(long timeoutMillis) {
+        return Math.min(timeoutMillis, remainingMillis());
+    }
+}
@@ -3,7 +3,9 @@ package io.jenkins.plugins.buildkite.api_client;
 import hudson.ProxyConfiguration;
 import hudson.Util;
 import hudson.util.Secret;
+import io.jenkins.plugins.buildkite.BuildkiteGlobalConfiguration;
 import jenkins.model.Jenkins;
+import jenkins.util.Timer;
 import org.apache.hc.client5.http.auth.AuthScope;
 import org.apache.hc.client5.http.auth.UsernamePasswordCredentials;
 import org.apache.hc.client5.http.config.ConnectionConfig;
@@ -13,22 +15,44 @@ import org.apache.hc.client5.http.impl.auth.BasicCredentialsProvider;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
 import org.apache.hc.client5.http.impl.routing.DefaultProxyRoutePlanner;
 import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolStats;
 import org.apache.hc.core5.util.Timeout;
 
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 class HttpClient {
-    public static HttpClientBuilder getCloseableHttpClientBuilder() {
-        int timeoutInSeconds = 60;
+    private static final Logger LOGGER = Logger.getLogger(HttpClient.class.getName());
 
-        var connectionConfig = ConnectionConfig.custom()
-                .setConnectTimeout(Timeout.ofSeconds(timeoutInSeconds))
-                .setSocketTimeout(Timeout.ofSeconds(timeoutInSeconds)).build();
+    private static ClientSettings sharedSettings;
+    private static PoolingHttpClientConnectionManager sharedConnectionManager;
+    private static CloseableHttpClient sharedHttpClient;
 
-        var connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
-                .setDefaultConnectionConfig(connectionConfig)
-                .build();
+    /**
+     * The settings a shared client was built with. The proxy is compared by identity,
+     * as Jenkins replaces its {@link ProxyConfiguration} whenever it is changed.
+     */
+    private record ClientSettings(int timeoutInSeconds, int maxConnections, ProxyConfiguration proxy) {
+        static ClientSettings current() {
+            var configuration = BuildkiteGlobalConfiguration.get();
+            Jenkins jenkinsInstance = Jenkins.getInstanceOrNull();
+
+            return new ClientSettings(
+                    configuration.getTimeoutInSeconds(),
+                    configuration.getMaxConnections(),
+                    jenkinsInstance != null ? jenkinsInstance.proxy : null
+            );
+        }
+    }
+
+    public static HttpClientBuilder getCloseableHttpClientBuilder(PoolingHttpClientConnectionManager connectionManager) {
+        int timeoutInSeconds = BuildkiteGlobalConfiguration.get().getTimeoutInSeconds();
 
         var requestConfig = RequestConfig.custom()
                 .setConnectionRequestTimeout(Timeout.ofSeconds(timeoutInSeconds)).build();
@@ -65,7 +89,57 @@ class HttpClient {
         return clientBuilder;
     }
 
-    public static CloseableHttpClient getCloseableHttpClient() {
-        return getCloseableHttpClientBuilder().build();
+    /**
+     * @return the client shared by all API clients, so concurrent steps reuse one connection pool.
+     * Don't keep it beyond a single request: it is closed some time after the settings change.
+     */
+    public static synchronized CloseableHttpClient getCloseableHttpClient() {
+        var settings = ClientSettings.current();
+
+        if (sharedHttpClient == null || !settings.equals(sharedSettings)) {
+            retire(sharedHttpClient, sharedSettings);
+
+            sharedSettings = settings;
+            sharedConnectionManager = createConnectionManager(settings);
+            sharedHttpClient = getCloseableHttpClientBuilder(sharedConnectionManager).build();
+        }
+        return sharedHttpClient;
+    }
+
+    /**
+     * @return the state of the shared connection pool, or {@code null} if no client was created yet
+     */
+    public static synchronized PoolStats getPoolStats() {
+        return sharedConnectionManager != null ? sharedConnectionManager.getTotalStats() : null;
+    }
+
+    private static PoolingHttpClientConnectionManager createConnectionManager(ClientSettings settings) {
+        var connectionConfig = ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofSeconds(settings.timeoutInSeconds()))
+                .setSocketTimeout(Timeout.ofSeconds(settings.timeoutInSeconds())).build();
+
+        // Nearly all requests go to the same host, so the per-route limit is the one that matters
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setDefaultConnectionConfig(connectionConfig)
+                .setMaxConnTotal(settings.maxConnections())
+                .setMaxConnPerRoute(settings.maxConnections())
+                .build();
+    }
+
+    /**
+     * Closes a replaced client once requests that may still be using it have timed out.
+     */
+    private static void retire(CloseableHttpClient client, ClientSettings settings) {
+        if (client == null) {
+            return;
+        }
+
+        Timer.get().schedule(() -> {
+            try {
+                client.close(CloseMode.GRACEFUL);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.FINE, "Failed to close replaced Buildkite HTTP client", e);
+            }
+        }, 2L * settings.timeoutInSeconds(), TimeUnit.SECONDS);
     }
 }
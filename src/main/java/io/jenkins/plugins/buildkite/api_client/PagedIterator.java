@@ -0,0 +1,111 @@
+package io.jenkins.plugins.buildkite.api_client;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Walks the pages of a list endpoint one at a time, following the {@code Link} header's next page.
+ * A page is only requested once the caller has consumed the one before it, so at most one page is held in memory,
+ * or two with prefetching, and a caller that stops early doesn't request the remaining pages at all.
+ */
+final class PagedIterator<T> implements Iterator<T> {
+
+    record Page<T>(List<T> items, String nextUrl) {
+    }
+
+    @FunctionalInterface
+    interface PageFetcher<T> {
+        Page<T> fetch(String url);
+    }
+
+    private final PageFetcher<T> fetcher;
+    private final Executor prefetchExecutor;
+    private Iterator<T> current = Collections.emptyIterator();
+    private String nextUrl;
+    private CompletableFuture<Page<T>> prefetched;
+
+    /**
+     * @param prefetchExecutor requests the next page while the current one is consumed, or {@code null} not to
+     */
+    PagedIterator(String firstUrl, PageFetcher<T> fetcher, Executor prefetchExecutor) {
+        this.nextUrl = firstUrl;
+        this.fetcher = fetcher;
+        this.prefetchExecutor = prefetchExecutor;
+    }
+
+    static <T> Stream<T> stream(String firstUrl, PageFetcher<T> fetcher, Executor prefetchExecutor) {
+        var iterator = new PagedIterator<>(firstUrl, fetcher, prefetchExecutor);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (prefetched == null && nextUrl == null) {
+                return false;
+            }
+            load(nextPage());
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    /**
+     * Drops a prefetched page nobody is going to read.
+     */
+    void close() {
+        if (prefetched != null) {
+            prefetched.cancel(false);
+            prefetched = null;
+        }
+        nextUrl = null;
+        current = Collections.emptyIterator();
+    }
+
+    private Page<T> nextPage() {
+        if (prefetched == null) {
+            String url = nextUrl;
+            nextUrl = null;
+            return fetcher.fetch(url);
+        }
+
+        try {
+            return prefetched.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            prefetched = null;
+        }
+    }
+
+    private void load(Page<T> page) {
+        current = page.items().iterator();
+        nextUrl = page.nextUrl();
+
+        if (prefetchExecutor != null && nextUrl != null) {
+            String url = nextUrl;
+            nextUrl = null;
+            prefetched = CompletableFuture.supplyAsync(() -> fetcher.fetch(url), prefetchExecutor);
+        }
+    }
+}
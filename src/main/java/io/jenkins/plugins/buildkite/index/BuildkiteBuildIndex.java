@@ -0,0 +1,295 @@
+package io.jenkins.plugins.buildkite.index;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hudson.Extension;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.PeriodicWork;
+import jenkins.model.Jenkins;
+import jenkins.util.Timer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The Buildkite builds created by {@code buildkite(…)} steps, kept in {@code $JENKINS_HOME/buildkite/builds.jsonl}
+ * so that questions like "which build did this run trigger" or "did this commit pass" don't need the API or build logs.
+ * <p>
+ * Every change is appended as a JSON line and the last line of a build wins. The latest {@link #MAX_RECORDS} builds
+ * are also held in memory, loaded from the file once at startup, so queries never read the file and never hold up
+ * the steps recording builds. {@link Compaction} periodically rewrites the file with one line per build.
+ * Outside of Jenkins, e.g. in unit tests, the index only lives in memory.
+ */
+public final class BuildkiteBuildIndex {
+    private static final Logger LOGGER = Logger.getLogger(BuildkiteBuildIndex.class.getName());
+    // The oldest builds are dropped beyond this, from memory right away and from the file on compaction
+    static final int MAX_RECORDS = 100_000;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final BuildkiteBuildIndex MEMORY_ONLY = new BuildkiteBuildIndex(null, MAX_RECORDS);
+    private static volatile BuildkiteBuildIndex instance;
+
+    private final Path file;
+    // The last record of each build, ordered by when it was recorded
+    private final Map<String, BuildkiteBuildRecord> records;
+    private final Object loadLock = new Object();
+    private volatile boolean loaded;
+    private boolean tailChecked;
+
+    BuildkiteBuildIndex(Path file, int maxRecords) {
+        this.file = file;
+        this.loaded = file == null;
+        this.records = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, BuildkiteBuildRecord> eldest) {
+                return size() > maxRecords;
+            }
+        };
+    }
+
+    public static BuildkiteBuildIndex get() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return MEMORY_ONLY;
+        }
+
+        if (instance == null) {
+            synchronized (BuildkiteBuildIndex.class) {
+                if (instance == null) {
+                    instance = new BuildkiteBuildIndex(jenkins.getRootDir().toPath().resolve("buildkite").resolve("builds.jsonl"), MAX_RECORDS);
+                }
+            }
+        }
+        return instance;
+    }
+
+    @Initializer(after = InitMilestone.JOB_CONFIG_ADAPTED)
+    public static void loadAtStartup() {
+        // Reading a large index takes a moment, which shouldn't hold up startup
+        Timer.get().submit(() -> get().load());
+    }
+
+    /**
+     * Adds or updates a build. Failing to write the index is logged rather than thrown, as it must never fail a step.
+     */
+    public synchronized void record(BuildkiteBuildRecord record) {
+        // Removing first moves the build to the end, so the order follows the latest record
+        records.remove(record.key());
+        records.put(record.key(), record);
+
+        if (file == null) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(file.getParent());
+            Files.writeString(
+                    file,
+                    (endsMidLine() ? "\n" : "") + MAPPER.writeValueAsString(record) + "\n",
+                    StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND
+            );
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to record Buildkite build " + record.key(), e);
+        }
+    }
+
+    /**
+     * Checks once whether the file ends with a line cut short, e.g. by a crash, so the next record starts on its own line.
+     */
+    private boolean endsMidLine() throws IOException {
+        if (tailChecked) {
+            return false;
+        }
+        tailChecked = true;
+
+        if (!Files.exists(file) || Files.size(file) == 0) {
+            return false;
+        }
+        try (var channel = Files.newByteChannel(file)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.position(channel.size() - 1).read(last);
+            return last.get(0) != '\n';
+        }
+    }
+
+    /**
+     * Reads the file into memory, unless that was done already. The file is read without holding the index's lock,
+     * so steps keep recording builds meanwhile; those records are newer than the file's and win the merge.
+     */
+    void load() {
+        if (loaded) {
+            return;
+        }
+
+        synchronized (loadLock) {
+            if (loaded) {
+                return;
+            }
+
+            Map<String, BuildkiteBuildRecord> fromFile = readAll();
+            synchronized (this) {
+                for (BuildkiteBuildRecord record : records.values()) {
+                    fromFile.remove(record.key());
+                    fromFile.put(record.key(), record);
+                }
+                records.clear();
+                records.putAll(fromFile);
+                loaded = true;
+            }
+        }
+    }
+
+    public BuildkiteBuildRecord find(String organization, String pipeline, int number) {
+        load();
+
+        synchronized (this) {
+            return records.get(BuildkiteBuildRecord.key(organization, pipeline, number));
+        }
+    }
+
+    /**
+     * @return the builds triggered by a Jenkins run, given its externalizable ID like {@code folder/job#42}
+     */
+    public List<BuildkiteBuildRecord> findByRun(String runId) {
+        return query(record -> runId.equals(record.runId()), Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the builds of a commit, or of commits starting with the given abbreviated SHA, in a pipeline
+     */
+    public List<BuildkiteBuildRecord> findByCommit(String organization, String pipeline, String commit) {
+        return query(record -> organization.equals(record.organization())
+                && pipeline.equals(record.pipeline())
+                && record.commit() != null
+                && record.commit().startsWith(commit), Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return up to {@code limit} builds matching the filter, most recently recorded first
+     */
+    public List<BuildkiteBuildRecord> query(Predicate<BuildkiteBuildRecord> filter, int limit) {
+        load();
+
+        // Only copying the references holds the lock, the filter runs without it
+        List<BuildkiteBuildRecord> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(records.values());
+        }
+
+        var matches = new ArrayList<BuildkiteBuildRecord>();
+        for (int i = snapshot.size() - 1; i >= 0 && matches.size() < limit; i--) {
+            BuildkiteBuildRecord record = snapshot.get(i);
+            if (filter.test(record)) {
+                matches.add(record);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Rewrites the file with only the builds held in memory, i.e. the last line of each of the latest
+     * {@link #MAX_RECORDS} builds. The file is written without holding the lock, and builds recorded
+     * meanwhile are appended to it before it replaces the current one.
+     */
+    public void compact() {
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        load();
+
+        Map<String, BuildkiteBuildRecord> snapshot;
+        synchronized (this) {
+            snapshot = new LinkedHashMap<>(records);
+        }
+
+        Path compacted = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+                for (BuildkiteBuildRecord record : snapshot.values()) {
+                    writer.write(MAPPER.writeValueAsString(record));
+                    writer.newLine();
+                }
+            }
+
+            synchronized (this) {
+                try (BufferedWriter writer = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8, StandardOpenOption.APPEND)) {
+                    for (BuildkiteBuildRecord record : records.values()) {
+                        if (snapshot.get(record.key()) != record) {
+                            writer.write(MAPPER.writeValueAsString(record));
+                            writer.newLine();
+                        }
+                    }
+                }
+                Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                tailChecked = true;
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to compact the Buildkite build index", e);
+        }
+    }
+
+    /**
+     * @return the last line of each build, ordered by when it was last recorded
+     */
+    private Map<String, BuildkiteBuildRecord> readAll() {
+        var records = new LinkedHashMap<String, BuildkiteBuildRecord>();
+        if (!Files.exists(file)) {
+            return records;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                try {
+                    BuildkiteBuildRecord record = MAPPER.readValue(line, BuildkiteBuildRecord.class);
+                    // Removing first moves the build to the end, so the order follows the latest line
+                    records.remove(record.key());
+                    records.put(record.key(), record);
+                } catch (IOException e) {
+                    // A line cut short by a crash mid-write, the next compaction drops it
+                    LOGGER.log(Level.FINE, "Skipping unreadable Buildkite build index line", e);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to read the Buildkite build index", e);
+        }
+        return records;
+    }
+
+    @Extension
+    public static class Compaction extends PeriodicWork {
+        @Override
+        public long getRecurrencePeriod() {
+            return TimeUnit.HOURS.toMillis(6);
+        }
+
+        @Override
+        protected void doRun() {
+            get().compact();
+        }
+    }
+}
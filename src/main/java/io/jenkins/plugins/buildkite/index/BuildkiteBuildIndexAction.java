@@ -0,0 +1,92 @@
+package io.jenkins.plugins.buildkite.index;
+
+import hudson.Extension;
+import hudson.model.Job;
+import hudson.model.RootAction;
+import hudson.util.HttpResponses;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.QueryParameter;
+
+/**
+ * Queries the {@link BuildkiteBuildIndex} over HTTP, e.g.
+ * {@code GET /buildkite-builds/query?organization=my-org&pipeline=my-pipeline&commit=9eb03cc}.
+ * Builds triggered by jobs the caller can't read are left out.
+ */
+@Extension
+public class BuildkiteBuildIndexAction implements RootAction {
+    static final int DEFAULT_LIMIT = 100;
+
+    @Override
+    public String getIconFileName() {
+        // Only an API, nothing to show in the side panel
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Buildkite Builds";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "buildkite-builds";
+    }
+
+    public HttpResponse doQuery(
+            @QueryParameter String organization,
+            @QueryParameter String pipeline,
+            @QueryParameter String commit,
+            @QueryParameter String branch,
+            @QueryParameter String run,
+            @QueryParameter int limit
+    ) {
+        Jenkins.get().checkPermission(Jenkins.READ);
+
+        var builds = new JSONArray();
+        for (BuildkiteBuildRecord record : BuildkiteBuildIndex.get().query(
+                record -> matches(organization, record.organization())
+                        && matches(pipeline, record.pipeline())
+                        && matches(branch, record.branch())
+                        && matches(run, record.runId())
+                        && (commit == null || commit.isEmpty() || (record.commit() != null && record.commit().startsWith(commit)))
+                        && canRead(record),
+                limit > 0 ? limit : DEFAULT_LIMIT
+        )) {
+            builds.add(toJson(record));
+        }
+
+        return HttpResponses.okJSON(builds);
+    }
+
+    private static boolean matches(String expected, String actual) {
+        return expected == null || expected.isEmpty() || expected.equals(actual);
+    }
+
+    private static boolean canRead(BuildkiteBuildRecord record) {
+        if (record.runId() == null) {
+            return false;
+        }
+
+        int separator = record.runId().lastIndexOf('#');
+        String jobName = separator < 0 ? record.runId() : record.runId().substring(0, separator);
+        // Returns null for jobs the current user can't read
+        return Jenkins.get().getItemByFullName(jobName, Job.class) != null;
+    }
+
+    private static JSONObject toJson(BuildkiteBuildRecord record) {
+        var json = new JSONObject();
+        json.put("organization", record.organization());
+        json.put("pipeline", record.pipeline());
+        json.put("number", record.number());
+        json.put("commit", record.commit());
+        json.put("branch", record.branch());
+        json.put("state", record.state());
+        json.put("webUrl", record.webUrl());
+        json.put("run", record.runId());
+        json.put("recordedAt", record.recordedAt());
+        return json;
+    }
+}
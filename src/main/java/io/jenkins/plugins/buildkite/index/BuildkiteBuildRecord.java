@@ -0,0 +1,28 @@
+package io.jenkins.plugins.buildkite.index;
+
+/**
+ * One line of the {@link BuildkiteBuildIndex}: a Buildkite build created by a Jenkins run, as last seen by the plugin.
+ *
+ * @param state the build state when it was recorded, final once the step has seen the build finish
+ * @param runId the {@link hudson.model.Run#getExternalizableId() externalizable ID} of the Jenkins run
+ * @param recordedAt when the line was recorded, in epoch milliseconds
+ */
+public record BuildkiteBuildRecord(
+        String organization,
+        String pipeline,
+        int number,
+        String commit,
+        String branch,
+        String state,
+        String webUrl,
+        String runId,
+        long recordedAt
+) {
+    public String key() {
+        return key(organization, pipeline, number);
+    }
+
+    static String key(String organization, String pipeline, int number) {
+        return String.format("%s/%s#%d", organization, pipeline, number);
+    }
+}
@@ -0,0 +1,116 @@
+package io.jenkins.plugins.buildkite.management;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.ManagementLink;
+import hudson.model.Result;
+import hudson.security.Permission;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteApiClient;
+import io.jenkins.plugins.buildkite.step.BuildkiteWait;
+import io.jenkins.plugins.buildkite.step.BuildkiteWaitRegistry;
+import io.jenkins.plugins.buildkite.telemetry.BuildkiteMetrics;
+import jenkins.model.CauseOfInterruption;
+import jenkins.model.Jenkins;
+import org.apache.hc.core5.pool.PoolStats;
+import org.jenkinsci.plugins.workflow.steps.FlowInterruptedException;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Lists the in-flight {@code buildkite(…)} waits together with the state of the API client, and lets admins
+ * cancel or refresh waits in bulk. Everything shown comes from memory, so the page is safe to load during incidents.
+ */
+@Extension
+public class BuildkiteManagementLink extends ManagementLink {
+
+    @Override
+    public String getIconFileName() {
+        return "monitor.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Buildkite";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Jenkins runs waiting on Buildkite builds, and the health of the Buildkite API client";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "buildkite";
+    }
+
+    @Override
+    public Category getCategory() {
+        return Category.STATUS;
+    }
+
+    @Override
+    public Permission getRequiredPermission() {
+        return Jenkins.ADMINISTER;
+    }
+
+    public List<BuildkiteWait> getWaits() {
+        return BuildkiteWaitRegistry.get().getWaits();
+    }
+
+    public PoolStats getConnectionPoolStats() {
+        return BuildkiteApiClient.getConnectionPoolStats();
+    }
+
+    public BuildkiteMetrics getMetrics() {
+        return BuildkiteMetrics.get();
+    }
+
+    /**
+     * @return how long ago, or in how long, the given instant is
+     */
+    public String relative(Instant instant) {
+        if (instant == null) {
+            return "-";
+        }
+
+        long millis = Duration.between(Instant.now(), instant).toMillis();
+        String span = Util.getTimeSpanString(Math.abs(millis));
+        return millis < 0 ? span + " ago" : "in " + span;
+    }
+
+    @RequirePOST
+    public HttpResponse doBulk(StaplerRequest2 req) {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+
+        String operation = req.getParameter("operation");
+        String[] ids = req.getParameterValues("id");
+        if (ids == null) {
+            return HttpResponses.redirectToDot();
+        }
+
+        for (String id : ids) {
+            BuildkiteWait wait = BuildkiteWaitRegistry.get().getWait(id);
+            if (wait == null) {
+                // Finished since the page was rendered
+                continue;
+            }
+
+            if ("cancel".equals(operation)) {
+                wait.cancel(new FlowInterruptedException(
+                        Result.ABORTED,
+                        new CauseOfInterruption.UserInterruption(Jenkins.getAuthentication2().getName())
+                ));
+            } else if ("refresh".equals(operation)) {
+                wait.refresh();
+            }
+        }
+
+        return HttpResponses.redirectToDot();
+    }
+}
@@ -0,0 +1,92 @@
+package io.jenkins.plugins.buildkite.step;
+
+import hudson.model.TaskListener;
+import hudson.util.Secret;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteApiClient;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteBuild;
+import io.jenkins.plugins.buildkite.api_client.CreateBuildRequest;
+import io.jenkins.plugins.buildkite.api_client.Deadline;
+import jenkins.security.MasterToSlaveCallable;
+
+import java.io.PrintStream;
+import java.time.Duration;
+
+/**
+ * Creates a Buildkite build and polls it until it finishes, on the agent running the step.
+ * All API traffic and JSON parsing stays on the agent: only state changes are written to the build log,
+ * and only the last polled build is returned to the controller.
+ * <p>
+ * The returned build is unfinished when the timeout expired first, or when {@code async} is set.
+ */
+class AgentBuildCallable extends MasterToSlaveCallable<BuildkiteBuild, Exception> {
+    private static final long serialVersionUID = 1L;
+
+    private final String organization;
+    private final String pipeline;
+    private final CreateBuildRequest request;
+    private final Secret apiToken;
+    private final String apiBaseUrl;
+    private final boolean async;
+    private final long timeoutMillis;
+    private final long initialPollDelayMillis;
+    private final long pollIntervalMillis;
+    private final TaskListener listener;
+
+    AgentBuildCallable(String organization, String pipeline, CreateBuildRequest request, Secret apiToken, String apiBaseUrl,
+                       boolean async, long timeoutMillis, long initialPollDelayMillis, long pollIntervalMillis, TaskListener listener) {
+        this.organization = organization;
+        this.pipeline = pipeline;
+        this.request = request;
+        this.apiToken = apiToken;
+        this.apiBaseUrl = apiBaseUrl;
+        this.async = async;
+        this.timeoutMillis = timeoutMillis;
+        this.initialPollDelayMillis = initialPollDelayMillis;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.listener = listener;
+    }
+
+    @Override
+    public BuildkiteBuild call() throws Exception {
+        return watch(new BuildkiteApiClient(apiToken, apiBaseUrl));
+    }
+
+    BuildkiteBuild watch(BuildkiteApiClient client) throws InterruptedException {
+        // Deadlines are relative to the JVM's clock, so the remaining time is what crosses the channel
+        Deadline deadline = timeoutMillis > 0 ? Deadline.after(Duration.ofMillis(timeoutMillis)) : Deadline.none();
+        client.setDeadline(deadline);
+
+        PrintStream console = listener.getLogger();
+
+        BuildkiteBuild build = client.createBuild(organization, pipeline, request);
+        console.println(String.format("%s/%s#%s created: %s", organization, pipeline, build.getNumber(), build.getWebUrl()));
+
+        if (async) {
+            return build;
+        }
+
+        console.println("Waiting for build to finish");
+        Thread.sleep(deadline.clampMillis(initialPollDelayMillis));
+
+        var reporter = new BuildProgressReporter(console);
+        while (!deadline.isExpired()) {
+            try {
+                build = client.getBuild(organization, pipeline, build.getNumber());
+            } catch (RuntimeException e) {
+                if (!deadline.isExpired()) {
+                    throw e;
+                }
+                break;
+            }
+
+            reporter.report(build);
+            if (build.buildFinished()) {
+                break;
+            }
+
+            Thread.sleep(deadline.clampMillis(pollIntervalMillis));
+        }
+
+        return build;
+    }
+}
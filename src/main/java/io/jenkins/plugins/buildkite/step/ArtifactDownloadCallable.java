@@ -0,0 +1,139 @@
+package io.jenkins.plugins.buildkite.step;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Downloads a single artifact from its pre-signed URL straight into a file on the agent.
+ * <p>
+ * Bytes are written to a {@code .part} file next to the target, so an interrupted transfer is resumed
+ * with a range request instead of starting over. The file is only moved into place once its size
+ * and SHA-1 checksum match what Buildkite reported.
+ */
+class ArtifactDownloadCallable extends MasterToSlaveFileCallable<Long> {
+    private static final long serialVersionUID = 1L;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int TIMEOUT_MILLIS = 60_000;
+
+    private final String url;
+    private final long expectedSize;
+    private final String sha1sum;
+
+    ArtifactDownloadCallable(String url, long expectedSize, String sha1sum) {
+        this.url = url;
+        this.expectedSize = expectedSize;
+        this.sha1sum = sha1sum;
+    }
+
+    @Override
+    public Long invoke(File target, VirtualChannel channel) throws IOException, InterruptedException {
+        Files.createDirectories(target.getParentFile().toPath());
+        File partial = new File(target.getParentFile(), target.getName() + ".part");
+
+        IOException lastFailure = null;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            try {
+                download(partial);
+                verify(partial);
+                Files.move(partial.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                return target.length();
+            } catch (IOException e) {
+                lastFailure = e;
+            }
+        }
+
+        throw lastFailure;
+    }
+
+    private void download(File partial) throws IOException {
+        long offset = partial.exists() ? partial.length() : 0;
+        if (expectedSize > 0 && offset == expectedSize) {
+            return;
+        }
+
+        var connection = (HttpURLConnection) URI.create(url).toURL().openConnection();
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        if (offset > 0) {
+            connection.setRequestProperty("Range", String.format("bytes=%d-", offset));
+        }
+
+        try {
+            int statusCode = connection.getResponseCode();
+            boolean append;
+
+            if (statusCode == HttpURLConnection.HTTP_PARTIAL) {
+                append = true;
+            } else if (statusCode == HttpURLConnection.HTTP_OK) {
+                // The server ignored the range, so the whole file is coming again
+                append = false;
+            } else {
+                if (statusCode == 416) {
+                    // Requested range not satisfiable: the partial file doesn't match the remote one
+                    Files.deleteIfExists(partial.toPath());
+                }
+                throw new IOException(String.format("Artifact download failed with status %d", statusCode));
+            }
+
+            try (InputStream in = connection.getInputStream();
+                 OutputStream out = new FileOutputStream(partial, append)) {
+                in.transferTo(out);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private void verify(File partial) throws IOException {
+        if (expectedSize > 0 && partial.length() != expectedSize) {
+            throw new IOException(String.format(
+                    "Artifact download incomplete: expected %d bytes, got %d", expectedSize, partial.length()));
+        }
+
+        if (sha1sum == null || sha1sum.isEmpty()) {
+            return;
+        }
+
+        String actual = sha1(partial);
+        if (!sha1sum.equalsIgnoreCase(actual)) {
+            Files.deleteIfExists(partial.toPath());
+            throw new IOException(String.format("Artifact checksum mismatch: expected %s, got %s", sha1sum, actual));
+        }
+    }
+
+    private static String sha1(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,83 @@
+package io.jenkins.plugins.buildkite.step;
+
+import io.jenkins.plugins.buildkite.api_client.BuildkiteBuild;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteJob;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Writes the progress of a watched build to the console.
+ * A line is printed when the build state changes, plus a job summary at most once per {@link #SUMMARY_INTERVAL}
+ * while the state stays the same, so long builds don't fill the log with identical lines.
+ */
+class BuildProgressReporter {
+    static final Duration SUMMARY_INTERVAL = Duration.ofMinutes(5);
+
+    private final PrintStream console;
+    private final LongSupplier clockMillis;
+    private final long startedAtMillis;
+    private String lastState;
+    private long lastPrintedAtMillis;
+
+    BuildProgressReporter(PrintStream console) {
+        this(console, System::currentTimeMillis);
+    }
+
+    BuildProgressReporter(PrintStream console, LongSupplier clockMillis) {
+        this.console = console;
+        this.clockMillis = clockMillis;
+        this.startedAtMillis = clockMillis.getAsLong();
+        this.lastPrintedAtMillis = this.startedAtMillis;
+    }
+
+    void report(BuildkiteBuild build) {
+        long now = clockMillis.getAsLong();
+
+        if (!Objects.equals(lastState, build.getState())) {
+            lastState = build.getState();
+            lastPrintedAtMillis = now;
+            console.println(String.format("  %s", build.getState()));
+        } else if (now - lastPrintedAtMillis >= SUMMARY_INTERVAL.toMillis()) {
+            lastPrintedAtMillis = now;
+            console.println(summary(build, now));
+        }
+    }
+
+    private String summary(BuildkiteBuild build, long now) {
+        int total = 0;
+        int passed = 0;
+        int failed = 0;
+        int running = 0;
+
+        for (BuildkiteJob job : build.getJobs()) {
+            // Retried jobs have been replaced by a new job in the same build
+            if (!"script".equals(job.getType()) || job.isRetried()) {
+                continue;
+            }
+
+            total++;
+            switch (String.valueOf(job.getState())) {
+                case "passed" -> passed++;
+                case "failed", "timed_out" -> failed++;
+                case "assigned", "accepted", "running" -> running++;
+                default -> {
+                }
+            }
+        }
+
+        Duration elapsed = Duration.ofMillis(now - startedAtMillis);
+        return String.format("  %s: %d/%d jobs passed, %d failed, %d running (%d:%02d:%02d elapsed)",
+                build.getState(),
+                passed,
+                total,
+                failed,
+                running,
+                elapsed.toHours(),
+                elapsed.toMinutesPart(),
+                elapsed.toSecondsPart()
+        );
+    }
+}
@@ -0,0 +1,118 @@
+package io.jenkins.plugins.buildkite.step;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.Item;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
+import lombok.Getter;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.AncestorInPath;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.verb.POST;
+
+import java.util.Set;
+
+public class BuildkiteArtifactsStep extends Step {
+    @Getter private final String organization;
+    @Getter private final String pipeline;
+    @Getter private final String credentialsId;
+    @Getter private final int buildNumber;
+    @Getter private String pattern;
+    @Getter private String path;
+    @Getter private int concurrency;
+    @Getter private String testResults;
+
+    @DataBoundConstructor
+    public BuildkiteArtifactsStep(String organization, String pipeline, String credentialsId, int buildNumber) {
+        // Required fields
+        this.organization = organization;
+        this.pipeline = pipeline;
+        this.credentialsId = credentialsId;
+        this.buildNumber = buildNumber;
+
+        // Required fields with defaults
+        // If specified in the `buildkiteArtifacts(…)`, they are overridden
+        // in the @DataBoundSetter set* methods below.
+        this.pattern = "**";
+        this.path = "";
+        this.concurrency = 4;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) {
+        return new BuildkiteArtifactsStepExecution(this, context);
+    }
+
+    @DataBoundSetter
+    public void setPattern(String pattern) {
+        if (pattern == null || pattern.trim().isEmpty()) return;
+
+        this.pattern = pattern;
+    }
+
+    @DataBoundSetter
+    public void setPath(String path) {
+        if (path == null) return;
+
+        this.path = path.trim();
+    }
+
+    @DataBoundSetter
+    public void setConcurrency(int concurrency) {
+        if (concurrency < 1) return;
+
+        this.concurrency = concurrency;
+    }
+
+    @DataBoundSetter
+    public void setTestResults(String testResults) {
+        if (testResults == null || testResults.trim().isEmpty()) return;
+
+        this.testResults = testResults;
+    }
+
+    @Extension
+    public static class DescriptorImpl extends StepDescriptor {
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Set.of(
+                    TaskListener.class, // Used in BuildkiteArtifactsStepExecution.run
+                    FilePath.class, // Artifacts are written into the workspace
+                    Run.class // Test results are attached to the run
+            );
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "buildkiteArtifacts";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Download Buildkite Build Artifacts";
+        }
+
+        public ListBoxModel doFillCredentialsIdItems(
+                @AncestorInPath Item item,
+                @QueryParameter String credentialsId
+        ) {
+            return BuildkiteStepSupport.fillCredentialsIdItems(item);
+        }
+
+        @POST
+        public FormValidation doCheckCredentialsId(
+                @AncestorInPath Item item,
+                @QueryParameter String value
+        ) {
+            return BuildkiteStepSupport.checkCredentialsId(item, value);
+        }
+    }
+}
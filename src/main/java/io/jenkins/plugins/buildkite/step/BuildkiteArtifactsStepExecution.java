@@ -0,0 +1,204 @@
+package io.jenkins.plugins.buildkite.step;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.FilePath;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.util.NamingThreadFactory;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteApiClient;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteApiException;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteArtifact;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteTokenPool;
+import org.jenkinsci.plugins.workflow.steps.FlowInterruptedException;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+
+import java.io.PrintStream;
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+public class BuildkiteArtifactsStepExecution extends SynchronousNonBlockingStepExecution<List<String>> {
+    private static final long serialVersionUID = 1L; // Required for Serializable interface
+    private transient final BuildkiteArtifactsStep step;
+
+    public BuildkiteArtifactsStepExecution(@NonNull BuildkiteArtifactsStep step, @NonNull StepContext context) {
+        super(context);
+        this.step = step;
+    }
+
+    @Override
+    protected List<String> run() throws Exception {
+        TaskListener listener = getContext().get(TaskListener.class);
+        PrintStream console = listener.getLogger();
+
+        BuildkiteTokenPool tokens = BuildkiteCredentials.findTokenPool(this.step.getCredentialsId());
+        if (tokens == null) {
+            var errorMessage = BuildkiteCredentials.notFoundMessage(this.step.getCredentialsId());
+            console.println(errorMessage);
+            this.getContext().onFailure(new FlowInterruptedException(Result.FAILURE));
+            return null;
+        }
+
+        BuildkiteApiClient client = new BuildkiteApiClient(tokens);
+        // Every page is read, so the next one can be on its way while the current one is filtered
+        client.setPrefetchPages(true);
+
+        List<BuildkiteArtifact> artifacts;
+        try (Stream<BuildkiteArtifact> listed = client.streamArtifacts(
+                this.step.getOrganization(),
+                this.step.getPipeline(),
+                this.step.getBuildNumber()
+        )) {
+            artifacts = selectArtifacts(listed);
+        } catch (BuildkiteApiException e) {
+            var errorMessage = String.format("Failed to list Buildkite artifacts: %s", e.getMessage());
+            console.println(errorMessage);
+            this.getContext().onFailure(new FlowInterruptedException(Result.FAILURE));
+            return null;
+        }
+
+        printDownloadingArtifacts(artifacts, console);
+
+        FilePath workspace = getContext().get(FilePath.class);
+        FilePath destination = this.step.getPath().isEmpty() ? workspace : workspace.child(this.step.getPath());
+
+        List<String> paths = downloadArtifacts(client, artifacts, destination, console);
+
+        if (paths != null && this.step.getTestResults() != null) {
+            importTestResults(paths, destination, console);
+        }
+
+        return paths;
+    }
+
+    List<BuildkiteArtifact> selectArtifacts(List<BuildkiteArtifact> artifacts) {
+        return selectArtifacts(artifacts.stream());
+    }
+
+    /**
+     * Filters the artifacts as they are listed, so only the selected ones are held in memory.
+     */
+    List<BuildkiteArtifact> selectArtifacts(Stream<BuildkiteArtifact> artifacts) {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + this.step.getPattern());
+
+        return artifacts
+                .filter(artifact -> artifact.uploadFinished()
+                        && isSafePath(artifact.getPath())
+                        && matcher.matches(Paths.get(artifact.getPath())))
+                .toList();
+    }
+
+    private List<String> downloadArtifacts(BuildkiteApiClient client, List<BuildkiteArtifact> artifacts, FilePath destination, PrintStream console) throws Exception {
+        // Every download is a remote call whose bytes flow from storage directly to the agent,
+        // so these threads only wait on the channel and the pool size bounds the parallel transfers.
+        ExecutorService executor = Executors.newFixedThreadPool(
+                this.step.getConcurrency(),
+                new NamingThreadFactory(Executors.defaultThreadFactory(), "BuildkiteArtifactDownload")
+        );
+
+        try {
+            var downloads = new ArrayList<Future<String>>();
+            for (BuildkiteArtifact artifact : artifacts) {
+                downloads.add(executor.submit(() -> downloadArtifact(client, artifact, destination, console)));
+            }
+
+            var paths = new ArrayList<String>();
+            var failed = false;
+            for (Future<String> download : downloads) {
+                try {
+                    paths.add(download.get());
+                } catch (ExecutionException e) {
+                    console.println(String.format("  %s", e.getCause().getMessage()));
+                    failed = true;
+                }
+            }
+
+            if (failed) {
+                console.println("Failed to download Buildkite artifacts");
+                this.getContext().onFailure(new FlowInterruptedException(Result.FAILURE));
+                return null;
+            }
+
+            return paths;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String downloadArtifact(BuildkiteApiClient client, BuildkiteArtifact artifact, FilePath destination, PrintStream console) throws Exception {
+        String url = client.getArtifactDownloadUrl(artifact);
+
+        try {
+            destination.child(artifact.getPath()).act(
+                    new ArtifactDownloadCallable(url, artifact.getFileSize(), artifact.getSha1sum())
+            );
+        } catch (Exception e) {
+            throw new Exception(String.format("%s: %s", artifact.getPath(), e.getMessage()), e);
+        }
+
+        console.println(String.format("  %s (%d bytes)", artifact.getPath(), artifact.getFileSize()));
+        return artifact.getPath();
+    }
+
+    private void importTestResults(List<String> paths, FilePath destination, PrintStream console) throws Exception {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + this.step.getTestResults());
+
+        var reportPaths = new ArrayList<String>();
+        for (String path : paths) {
+            if (matcher.matches(Paths.get(path))) {
+                reportPaths.add(path);
+            }
+        }
+
+        BuildkiteTestResults results = destination.act(new JUnitResultsCallable(reportPaths));
+
+        getContext().get(Run.class).addAction(new BuildkiteTestResultAction(
+                this.step.getOrganization(),
+                this.step.getPipeline(),
+                this.step.getBuildNumber(),
+                results
+        ));
+
+        var message = String.format("Imported %d test results from %d reports: %d passed, %d failed, %d skipped",
+                results.getTotal(),
+                reportPaths.size(),
+                results.getPassed(),
+                results.getFailed(),
+                results.getSkipped()
+        );
+        console.println(message);
+    }
+
+    private static boolean isSafePath(String path) {
+        if (path == null || path.isEmpty() || path.startsWith("/") || path.startsWith("\\")) {
+            return false;
+        }
+
+        for (String segment : path.split("[/\\\\]")) {
+            if (segment.equals("..") || segment.contains(":")) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void printDownloadingArtifacts(List<BuildkiteArtifact> artifacts, PrintStream console) {
+        var message = String.format("Downloading %d artifacts from %s/%s#%s",
+                artifacts.size(),
+                this.step.getOrganization(),
+                this.step.getPipeline(),
+                this.step.getBuildNumber()
+        );
+        console.println(message);
+    }
+}
@@ -0,0 +1,147 @@
+package io.jenkins.plugins.buildkite.step;
+
+import hudson.Util;
+import hudson.model.Run;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteBuild;
+import jenkins.model.RunAction2;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Where the time of a {@code buildkite(…)} step went, for one triggered Buildkite build.
+ * Durations are in milliseconds, and {@code -1} while unknown.
+ */
+@ExportedBean
+public class BuildkiteBuildAction implements RunAction2 {
+    private final String organization;
+    private final String pipeline;
+    private final int buildNumber;
+    private final String webUrl;
+    private final long createLatencyMillis;
+    private String state;
+    private long scheduledMillis = -1;
+    private long runningMillis = -1;
+    private int pollCount;
+    private long requestBytes;
+    private long responseBytes;
+    private transient Run<?, ?> run;
+
+    public BuildkiteBuildAction(String organization, String pipeline, BuildkiteBuild build, long createLatencyMillis) {
+        this.organization = organization;
+        this.pipeline = pipeline;
+        this.buildNumber = build.getNumber();
+        this.webUrl = build.getWebUrl();
+        this.createLatencyMillis = createLatencyMillis;
+        this.state = build.getState();
+    }
+
+    void recordPoll(BuildkiteBuild build) {
+        pollCount++;
+        state = build.getState();
+
+        // Buildkite may leave scheduled_at empty, in which case the build was scheduled when it was created
+        Instant scheduledAt = build.getScheduledAt() != null ? build.getScheduledAt() : build.getCreatedAt();
+        scheduledMillis = millisBetween(scheduledAt, build.getStartedAt());
+        runningMillis = millisBetween(build.getStartedAt(), build.getFinishedAt());
+    }
+
+    void recordTraffic(long requestBytes, long responseBytes) {
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+    }
+
+    @Exported
+    public String getOrganization() {
+        return organization;
+    }
+
+    @Exported
+    public String getPipeline() {
+        return pipeline;
+    }
+
+    @Exported
+    public int getBuildNumber() {
+        return buildNumber;
+    }
+
+    @Exported
+    public String getWebUrl() {
+        return webUrl;
+    }
+
+    @Exported
+    public String getState() {
+        return state;
+    }
+
+    @Exported
+    public long getCreateLatencyMillis() {
+        return createLatencyMillis;
+    }
+
+    @Exported
+    public long getScheduledMillis() {
+        return scheduledMillis;
+    }
+
+    @Exported
+    public long getRunningMillis() {
+        return runningMillis;
+    }
+
+    @Exported
+    public int getPollCount() {
+        return pollCount;
+    }
+
+    @Exported
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    @Exported
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    public String formatMillis(long millis) {
+        return millis < 0 ? "-" : Util.getTimeSpanString(millis);
+    }
+
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    @Override
+    public void onAttached(Run<?, ?> run) {
+        this.run = run;
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> run) {
+        this.run = run;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return String.format("Buildkite Build: %s/%s#%s", organization, pipeline, buildNumber);
+    }
+
+    @Override
+    public String getUrlName() {
+        return null;
+    }
+
+    private static long millisBetween(Instant from, Instant to) {
+        return from == null || to == null ? -1 : Duration.between(from, to).toMillis();
+    }
+}
@@ -0,0 +1,116 @@
+package io.jenkins.plugins.buildkite.step;
+
+import io.jenkins.plugins.buildkite.api_client.BuildkiteBuild;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteBuildState;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteJob;
+import org.jenkinsci.plugins.scriptsecurity.sandbox.whitelists.Whitelisted;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What {@code buildkite(async: true)} returns: a reference to the triggered build and the last state read of it.
+ * <p>
+ * The accessors run on the CPS VM thread, so they never make requests: they return what the step that created the
+ * handle saw, until the {@code buildkiteStatus(…)} step reads the build again and updates it. Only the identifying
+ * fields and the state are serialized with the Pipeline program, the jobs are empty after a restart until the next
+ * {@code buildkiteStatus(…)}.
+ */
+public class BuildkiteBuildHandle implements Serializable {
+    private static final long serialVersionUID = 2L;
+
+    private final String credentialsId;
+    private final String organization;
+    private final String pipeline;
+    private final int number;
+    private final String webUrl;
+    private volatile String state;
+    private transient volatile List<BuildkiteJob> jobs;
+
+    BuildkiteBuildHandle(String credentialsId, String organization, String pipeline, BuildkiteBuild build) {
+        this.credentialsId = credentialsId;
+        this.organization = organization;
+        this.pipeline = pipeline;
+        this.number = build.getNumber();
+        this.webUrl = build.getWebUrl();
+        update(build);
+    }
+
+    String getCredentialsId() {
+        return this.credentialsId;
+    }
+
+    @Whitelisted
+    public String getOrganization() {
+        return this.organization;
+    }
+
+    @Whitelisted
+    public String getPipeline() {
+        return this.pipeline;
+    }
+
+    @Whitelisted
+    public int getNumber() {
+        return this.number;
+    }
+
+    @Whitelisted
+    public String getWebUrl() {
+        return this.webUrl;
+    }
+
+    @Whitelisted
+    public String getState() {
+        return this.state;
+    }
+
+    /**
+     * @return the build's jobs as maps with {@code id}, {@code name}, {@code type}, {@code state} and {@code retried},
+     * which sandboxed scripts can read without approving each getter
+     */
+    @Whitelisted
+    public List<Map<String, Object>> getJobs() {
+        var jobs = new ArrayList<Map<String, Object>>();
+        if (this.jobs == null) {
+            return jobs;
+        }
+
+        for (BuildkiteJob job : this.jobs) {
+            var fields = new LinkedHashMap<String, Object>();
+            fields.put("id", job.getId());
+            fields.put("name", job.getName());
+            fields.put("type", job.getType());
+            fields.put("state", job.getState());
+            fields.put("retried", job.isRetried());
+            jobs.add(fields);
+        }
+        return jobs;
+    }
+
+    @Whitelisted
+    public boolean finished() {
+        return BuildkiteBuildState.of(this.state).isFinished();
+    }
+
+    @Whitelisted
+    public boolean passed() {
+        return BuildkiteBuildState.of(this.state).isPassed();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s/%s#%d", this.organization, this.pipeline, this.number);
+    }
+
+    /**
+     * Called off the CPS VM thread by the steps that read the build.
+     */
+    void update(BuildkiteBuild build) {
+        this.jobs = build.getJobs() != null ? List.copyOf(build.getJobs()) : List.of();
+        this.state = build.getState();
+    }
+}
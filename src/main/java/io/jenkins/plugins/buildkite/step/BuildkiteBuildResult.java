@@ -0,0 +1,92 @@
+package io.jenkins.plugins.buildkite.step;
+
+import io.jenkins.plugins.buildkite.api_client.BuildkiteBuild;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteBuildState;
+import org.jenkinsci.plugins.scriptsecurity.sandbox.whitelists.Whitelisted;
+
+import java.io.Serializable;
+
+/**
+ * What a synchronous {@code buildkite(…)} step returns: the finished build, reduced to what scripts use.
+ * It is serialized into the Pipeline program for as long as a script holds on to it, so the message, timestamps
+ * and jobs of {@link BuildkiteBuild} are left out.
+ */
+public final class BuildkiteBuildResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String id;
+    private final int number;
+    private final BuildkiteBuildState state;
+    private final String commit;
+    private final String branch;
+    private final String url;
+    private final String webUrl;
+
+    BuildkiteBuildResult(String id, int number, BuildkiteBuildState state, String commit, String branch, String url,
+                         String webUrl) {
+        this.id = id;
+        this.number = number;
+        this.state = state;
+        this.commit = commit;
+        this.branch = branch;
+        this.url = url;
+        this.webUrl = webUrl;
+    }
+
+    static BuildkiteBuildResult of(BuildkiteBuild build) {
+        return new BuildkiteBuildResult(build.getId(), build.getNumber(), build.getBuildState(), build.getCommit(),
+                build.getBranch(), build.getUrl(), build.getWebUrl());
+    }
+
+    @Whitelisted
+    public String getId() {
+        return id;
+    }
+
+    @Whitelisted
+    public int getNumber() {
+        return number;
+    }
+
+    @Whitelisted
+    public String getState() {
+        return state.toString();
+    }
+
+    public BuildkiteBuildState getBuildState() {
+        return state;
+    }
+
+    @Whitelisted
+    public String getCommit() {
+        return commit;
+    }
+
+    @Whitelisted
+    public String getBranch() {
+        return branch;
+    }
+
+    /**
+     * @return the build's REST API URL
+     */
+    @Whitelisted
+    public String getUrl() {
+        return url;
+    }
+
+    @Whitelisted
+    public String getWebUrl() {
+        return webUrl;
+    }
+
+    @Whitelisted
+    public boolean passed() {
+        return state.isPassed();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("#%d %s", number, state);
+    }
+}
@@ -0,0 +1,118 @@
+package io.jenkins.plugins.buildkite.step;
+
+import com.cloudbees.plugins.credentials.CredentialsMatchers;
+import com.cloudbees.plugins.credentials.CredentialsProvider;
+import hudson.model.Item;
+import hudson.security.ACL;
+import hudson.util.Secret;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteTokenPool;
+import io.jenkins.plugins.buildkite.telemetry.BuildkiteCredentialsLookupEvent;
+import org.jenkinsci.plugins.plaincredentials.StringCredentials;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+final class BuildkiteCredentials {
+    private BuildkiteCredentials() {
+    }
+
+    static StringCredentials find(String credentialsId) {
+        return find(null, credentialsId);
+    }
+
+    /**
+     * @param item the job the credentials are used from, so only the credentials it can see are found,
+     *             or {@code null} for the credentials defined at the root of Jenkins
+     */
+    static StringCredentials find(Item item, String credentialsId) {
+        var event = new BuildkiteCredentialsLookupEvent();
+        event.begin();
+
+        // TODO: Tighten up this lookup for the steps, which don't pass their job yet
+        StringCredentials credentials = CredentialsMatchers.firstOrNull(
+                CredentialsProvider.lookupCredentialsInItem(
+                        StringCredentials.class,
+                        item,
+                        ACL.SYSTEM2
+                ),
+                CredentialsMatchers.withId(credentialsId)
+        );
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.credentialsId = credentialsId;
+            event.found = credentials != null;
+            event.commit();
+        }
+
+        return credentials;
+    }
+
+    /**
+     * Looks up the tokens of a comma-separated list of credentials IDs, the first one becoming the primary token.
+     *
+     * @return the pool, or {@code null} if any of the credentials can't be found
+     * @see #notFoundMessage(String)
+     */
+    static BuildkiteTokenPool findTokenPool(String credentialsIds) {
+        return findTokenPool(null, credentialsIds);
+    }
+
+    /**
+     * @see #find(Item, String)
+     */
+    static BuildkiteTokenPool findTokenPool(Item item, String credentialsIds) {
+        var tokens = new LinkedHashMap<String, Secret>();
+
+        for (String credentialsId : ids(credentialsIds)) {
+            StringCredentials credentials = find(item, credentialsId);
+            if (credentials == null) {
+                return null;
+            }
+            tokens.put(credentialsId, credentials.getSecret());
+        }
+
+        return tokens.isEmpty() ? null : BuildkiteTokenPool.of(tokens);
+    }
+
+    /**
+     * @return the IDs of a comma-separated list of credentials IDs that can't be found
+     */
+    static List<String> findMissing(String credentialsIds) {
+        return findMissing(null, credentialsIds);
+    }
+
+    /**
+     * @see #find(Item, String)
+     */
+    static List<String> findMissing(Item item, String credentialsIds) {
+        var missing = new ArrayList<String>();
+        for (String credentialsId : ids(credentialsIds)) {
+            if (find(item, credentialsId) == null) {
+                missing.add(credentialsId);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Explains why {@link #findTokenPool(String)} returned {@code null}, naming the IDs of a pool that can't be found.
+     */
+    static String notFoundMessage(String credentialsIds) {
+        List<String> missing = findMissing(credentialsIds);
+        return String.format("Could not find Credentials with id: %s", missing.isEmpty() ? credentialsIds : String.join(", ", missing));
+    }
+
+    static List<String> ids(String credentialsIds) {
+        if (credentialsIds == null) {
+            return List.of();
+        }
+
+        return Arrays.stream(credentialsIds.split(","))
+                .map(String::trim)
+                .filter(credentialsId -> !credentialsId.isEmpty())
+                .toList();
+    }
+}
@@ -0,0 +1,79 @@
+package io.jenkins.plugins.buildkite.step;
+
+import hudson.Extension;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import lombok.Getter;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One pipeline trigger in a {@code buildkiteDag(…)} step. Branch, commit and message fall back to the step's own.
+ */
+public class BuildkiteDagNode extends AbstractDescribableImpl<BuildkiteDagNode> {
+    @Getter private final String name;
+    @Getter private final String pipeline;
+    @Getter private String dependsOn;
+    @Getter private String branch;
+    @Getter private String commit;
+    @Getter private String message;
+
+    @DataBoundConstructor
+    public BuildkiteDagNode(String name, String pipeline) {
+        this.name = name == null ? null : name.trim();
+        this.pipeline = pipeline;
+        this.dependsOn = "";
+    }
+
+    /**
+     * Comma separated names of the nodes whose builds must pass before this one is created.
+     */
+    @DataBoundSetter
+    public void setDependsOn(String dependsOn) {
+        if (dependsOn == null) return;
+
+        this.dependsOn = dependsOn.trim();
+    }
+
+    @DataBoundSetter
+    public void setBranch(String branch) {
+        if (branch == null || branch.trim().isEmpty()) return;
+
+        this.branch = branch;
+    }
+
+    @DataBoundSetter
+    public void setCommit(String commit) {
+        if (commit == null || commit.trim().isEmpty()) return;
+
+        this.commit = commit;
+    }
+
+    @DataBoundSetter
+    public void setMessage(String message) {
+        if (message == null || message.trim().isEmpty()) return;
+
+        this.message = message;
+    }
+
+    List<String> getDependencies() {
+        return Arrays.stream(this.dependsOn.split(","))
+                .map(String::trim)
+                .filter(dependency -> !dependency.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    @Extension
+    @Symbol("buildkitePipeline")
+    public static class DescriptorImpl extends Descriptor<BuildkiteDagNode> {
+        @Override
+        public String getDisplayName() {
+            return "Buildkite Pipeline";
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package io.jenkins.plugins.buildkite.step;
+
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
+import lombok.Getter;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.AncestorInPath;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.verb.POST;
+
+import java.util.List;
+import java.util.Set;
+
+public class BuildkiteDagStep extends Step {
+    @Getter private final String organization;
+    @Getter private final String credentialsId;
+    @Getter private final List<BuildkiteDagNode> nodes;
+    @Getter private String branch;
+    @Getter private String commit;
+    @Getter private String message;
+    @Getter private int timeout;
+    @Getter private boolean cancelOnTimeout;
+    @Getter private int pollIntervalSeconds;
+
+    @DataBoundConstructor
+    public BuildkiteDagStep(String organization, String credentialsId, List<BuildkiteDagNode> nodes) {
+        // Required fields
+        this.organization = organization;
+        this.credentialsId = credentialsId;
+        this.nodes = nodes == null ? List.of() : List.copyOf(nodes);
+
+        // Required fields with defaults
+        // If specified in the `buildkiteDag(…)`, they are overridden
+        // in the @DataBoundSetter set* methods below.
+        this.branch = "main";
+        this.commit = "HEAD";
+        this.timeout = 0;
+        this.cancelOnTimeout = false;
+        this.pollIntervalSeconds = 0;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) {
+        if (this.message == null) {
+            this.message = BuildkiteStepSupport.defaultMessage(context);
+        }
+
+        return new BuildkiteDagStepExecution(this, context);
+    }
+
+    @DataBoundSetter
+    public void setBranch(String branch) {
+        if (branch == null || branch.trim().isEmpty()) return;
+
+        this.branch = branch;
+    }
+
+    @DataBoundSetter
+    public void setCommit(String commit) {
+        if (commit == null || commit.trim().isEmpty()) return;
+
+        this.commit = commit;
+    }
+
+    @DataBoundSetter
+    public void setMessage(String message) {
+        if (message == null || message.trim().isEmpty()) return;
+
+        this.message = message;
+    }
+
+    /**
+     * Minutes the whole graph may take, from the first build being created to the last one finishing.
+     */
+    @DataBoundSetter
+    public void setTimeout(int timeout) {
+        if (timeout < 0) return;
+
+        this.timeout = timeout;
+    }
+
+    /**
+     * Cancels the builds still running when the timeout expires.
+     */
+    @DataBoundSetter
+    public void setCancelOnTimeout(boolean cancelOnTimeout) {
+        this.cancelOnTimeout = cancelOnTimeout;
+    }
+
+    /**
+     * Overrides the poll interval of the global configuration when greater than 0.
+     */
+    @DataBoundSetter
+    public void setPollIntervalSeconds(int pollIntervalSeconds) {
+        if (pollIntervalSeconds < 0) return;
+
+        this.pollIntervalSeconds = pollIntervalSeconds;
+    }
+
+    @Extension
+    public static class DescriptorImpl extends StepDescriptor {
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Set.of(
+                    TaskListener.class, // Used in BuildkiteDagStepExecution.run
+                    Run.class // Used to generate the default build message
+            );
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "buildkiteDag";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Trigger a Graph of Buildkite Builds";
+        }
+
+        public ListBoxModel doFillCredentialsIdItems(
+                @AncestorInPath Item item,
+                @QueryParameter String credentialsId
+        ) {
+            return BuildkiteStepSupport.fillCredentialsIdItems(item);
+        }
+
+        @POST
+        public FormValidation doCheckCredentialsId(
+                @AncestorInPath Item item,
+                @QueryParameter String value
+        ) {
+            return BuildkiteStepSupport.checkCredentialsId(item, value);
+        }
+    }
+}
@@ -0,0 +1,458 @@
+package io.jenkins.plugins.buildkite.step;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteApiClient;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteBuild;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteInterruptedException;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteTokenPool;
+import io.jenkins.plugins.buildkite.api_client.CreateBuildRequest;
+import io.jenkins.plugins.buildkite.api_client.Deadline;
+import io.jenkins.plugins.buildkite.telemetry.BuildkiteMetrics;
+import org.jenkinsci.plugins.workflow.steps.FlowInterruptedException;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Triggers the builds of a {@code buildkiteDag(…)} step. A single loop watches every running build: each round it
+ * creates the builds whose dependencies have all passed, skips the ones behind a failed dependency, and polls the
+ * rest. A finished build releases its dependents in the same round, so independent branches run side by side
+ * and no dependent waits a poll interval longer than it has to.
+ * <p>
+ * Each running build is listed on the waits page like the build of a {@code buildkite(…)} step. Their waits share
+ * one {@link BuildkiteWait.Wakeup}, so refreshing any of them wakes the loop, and canceling one stops the whole step.
+ */
+public class BuildkiteDagStepExecution extends SynchronousNonBlockingStepExecution<Map<String, BuildkiteBuildResult>> {
+    private static final long serialVersionUID = 1L; // Required for Serializable interface
+    private transient final BuildkiteDagStep step;
+    private transient Deadline deadline = Deadline.none();
+    private transient BuildkiteWait.Wakeup wakeup = new BuildkiteWait.Wakeup();
+
+    enum NodeState {
+        PENDING, RUNNING, PASSED, FAILED, SKIPPED;
+
+        boolean isDone() {
+            return this != PENDING && this != RUNNING;
+        }
+    }
+
+    private static class NodeRun {
+        private final BuildkiteDagNode node;
+        private NodeState state = NodeState.PENDING;
+        private BuildkiteBuild build;
+        private BuildkiteBuildAction action;
+        private BuildkiteWait wait;
+
+        NodeRun(BuildkiteDagNode node) {
+            this.node = node;
+        }
+    }
+
+    public BuildkiteDagStepExecution(@NonNull BuildkiteDagStep step, @NonNull StepContext context) {
+        super(context);
+        this.step = step;
+    }
+
+    @Override
+    protected Map<String, BuildkiteBuildResult> run() throws Exception {
+        TaskListener listener = getContext().get(TaskListener.class);
+        PrintStream console = listener.getLogger();
+
+        List<BuildkiteDagNode> order;
+        try {
+            order = topologicalOrder(this.step.getNodes());
+        } catch (IllegalArgumentException e) {
+            console.println(String.format("Invalid Buildkite graph: %s", e.getMessage()));
+            this.getContext().onFailure(new FlowInterruptedException(Result.FAILURE));
+            return null;
+        }
+
+        BuildkiteTokenPool tokens = BuildkiteCredentials.findTokenPool(this.step.getCredentialsId());
+        if (tokens == null) {
+            var errorMessage = BuildkiteCredentials.notFoundMessage(this.step.getCredentialsId());
+            console.println(errorMessage);
+            this.getContext().onFailure(new FlowInterruptedException(Result.FAILURE));
+            return null;
+        }
+
+        BuildkiteApiClient client = new BuildkiteApiClient(tokens);
+
+        if (this.step.getTimeout() > 0) {
+            this.deadline = Deadline.after(Duration.ofMinutes(this.step.getTimeout()));
+            client.setDeadline(this.deadline);
+        }
+
+        return watch(client, order, console);
+    }
+
+    /**
+     * Orders the nodes so every node comes after its dependencies, keeping the declared order where the graph
+     * allows it. Rejects empty graphs, duplicate or missing names, unknown dependencies and cycles.
+     */
+    static List<BuildkiteDagNode> topologicalOrder(List<BuildkiteDagNode> nodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("no pipelines to trigger");
+        }
+
+        var byName = new LinkedHashMap<String, BuildkiteDagNode>();
+        for (BuildkiteDagNode node : nodes) {
+            if (node.getName() == null || node.getName().isEmpty()) {
+                throw new IllegalArgumentException(String.format("pipeline %s has no name", node.getPipeline()));
+            }
+            if (byName.put(node.getName(), node) != null) {
+                throw new IllegalArgumentException(String.format("%s is used by more than one node", node.getName()));
+            }
+        }
+
+        var remainingDependencies = new HashMap<String, Integer>();
+        var dependents = new HashMap<String, List<BuildkiteDagNode>>();
+        for (BuildkiteDagNode node : nodes) {
+            for (String dependency : node.getDependencies()) {
+                if (!byName.containsKey(dependency)) {
+                    throw new IllegalArgumentException(String.format(
+                            "%s depends on unknown node %s", node.getName(), dependency));
+                }
+                dependents.computeIfAbsent(dependency, name -> new ArrayList<>()).add(node);
+            }
+            remainingDependencies.put(node.getName(), node.getDependencies().size());
+        }
+
+        var ready = new ArrayDeque<BuildkiteDagNode>();
+        for (BuildkiteDagNode node : nodes) {
+            if (node.getDependencies().isEmpty()) {
+                ready.add(node);
+            }
+        }
+
+        var order = new ArrayList<BuildkiteDagNode>();
+        while (!ready.isEmpty()) {
+            BuildkiteDagNode node = ready.poll();
+            order.add(node);
+
+            for (BuildkiteDagNode dependent : dependents.getOrDefault(node.getName(), List.of())) {
+                if (remainingDependencies.merge(dependent.getName(), -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        if (order.size() < nodes.size()) {
+            var cycle = nodes.stream()
+                    .filter(node -> !order.contains(node))
+                    .map(BuildkiteDagNode::getName)
+                    .toList();
+            throw new IllegalArgumentException(String.format("dependency cycle between %s", String.join(", ", cycle)));
+        }
+
+        return order;
+    }
+
+    Map<String, BuildkiteBuildResult> watch(BuildkiteApiClient client, List<BuildkiteDagNode> order, PrintStream console) throws Exception {
+        var runs = new LinkedHashMap<String, NodeRun>();
+        for (BuildkiteDagNode node : order) {
+            runs.put(node.getName(), new NodeRun(node));
+        }
+
+        try {
+            return watchRuns(client, runs, console);
+        } finally {
+            runs.values().forEach(this::releaseWait);
+        }
+    }
+
+    private Map<String, BuildkiteBuildResult> watchRuns(BuildkiteApiClient client, Map<String, NodeRun> runs, PrintStream console) throws Exception {
+        while (true) {
+            int started;
+            try {
+                started = startReadyNodes(client, runs, console);
+            } catch (RuntimeException e) {
+                if (!this.deadline.isExpired()) {
+                    throw e;
+                }
+                return handleTimeout(client, runs, console);
+            }
+
+            if (runs.values().stream().noneMatch(run -> run.state == NodeState.RUNNING)) {
+                break;
+            }
+
+            // Builds created this round are checked after the short initial delay, so quick pipelines
+            // release their dependents sooner
+            long delayMillis = started > 0
+                    ? BuildkiteStepSupport.initialPollDelayMillis()
+                    : BuildkiteStepSupport.pollIntervalMillis(this.step.getPollIntervalSeconds());
+            try {
+                sleepUntilNextPoll(runs, this.deadline.clampMillis(delayMillis));
+
+                if (this.isBuildPaused()) {
+                    awaitResume(runs, console);
+                }
+            } catch (InterruptedException e) {
+                console.println("Wait canceled");
+                this.getContext().onFailure(new FlowInterruptedException(Result.FAILURE));
+                return null;
+            }
+
+            if (this.deadline.isExpired()) {
+                return handleTimeout(client, runs, console);
+            }
+
+            try {
+                pollRunningNodes(client, runs, console);
+            } catch (BuildkiteInterruptedException e) {
+                // Stopped while waiting for another step's request of the same build
+                console.println("Wait canceled");
+                this.getContext().onFailure(new FlowInterruptedException(Result.FAILURE));
+                return null;
+            } catch (RuntimeException e) {
+                if (!this.deadline.isExpired()) {
+                    throw e;
+                }
+                return handleTimeout(client, runs, console);
+            }
+        }
+
+        printSummary(runs, console);
+
+        var results = new LinkedHashMap<String, BuildkiteBuildResult>();
+        for (NodeRun run : runs.values()) {
+            if (run.build != null) {
+                results.put(run.node.getName(), BuildkiteBuildResult.of(run.build));
+            }
+        }
+
+        if (runs.values().stream().allMatch(run -> run.state == NodeState.PASSED)) {
+            this.getContext().onSuccess(results);
+        } else {
+            this.getContext().onFailure(new FlowInterruptedException(Result.FAILURE));
+        }
+
+        return null;
+    }
+
+    /**
+     * Walks the nodes in dependency order, so a skip cascades down the graph in a single pass.
+     */
+    private int startReadyNodes(BuildkiteApiClient client, Map<String, NodeRun> runs, PrintStream console) throws IOException, InterruptedException {
+        int started = 0;
+
+        for (NodeRun run : runs.values()) {
+            if (run.state != NodeState.PENDING) {
+                continue;
+            }
+
+            List<NodeRun> dependencies = run.node.getDependencies().stream().map(runs::get).toList();
+            if (dependencies.stream().anyMatch(dependency -> dependency.state.isDone() && dependency.state != NodeState.PASSED)) {
+                run.state = NodeState.SKIPPED;
+                console.println(String.format("%s: skipped, a dependency did not pass", run.node.getName()));
+            } else if (dependencies.stream().allMatch(dependency -> dependency.state == NodeState.PASSED)) {
+                startNode(client, run, console);
+                started++;
+            }
+        }
+
+        return started;
+    }
+
+    private void startNode(BuildkiteApiClient client, NodeRun run, PrintStream console) throws IOException, InterruptedException {
+        String pipeline = run.node.getPipeline();
+        long createStartedAt = System.nanoTime();
+
+        try {
+            run.build = client.createBuild(this.step.getOrganization(), pipeline, generateCreateBuildRequest(run.node));
+        } catch (RuntimeException e) {
+            // Past the deadline the whole graph times out, otherwise only this node fails and the others carry on
+            if (this.deadline.isExpired()) {
+                throw e;
+            }
+            run.state = NodeState.FAILED;
+            console.println(String.format("%s: failed to create Buildkite build: %s", run.node.getName(), e.getMessage()));
+            return;
+        }
+
+        run.state = NodeState.RUNNING;
+        run.wait = BuildkiteStepSupport.registerWait(this, getContext(), this.step.getOrganization(), pipeline,
+                run.build, this.wakeup);
+        console.println(String.format("%s: created %s/%s#%s: %s",
+                run.node.getName(),
+                this.step.getOrganization(),
+                pipeline,
+                run.build.getNumber(),
+                run.build.getWebUrl()
+        ));
+
+        run.action = new BuildkiteBuildAction(this.step.getOrganization(), pipeline, run.build,
+                Duration.ofNanos(System.nanoTime() - createStartedAt).toMillis());
+        Run<?, ?> jenkinsRun = getContext().get(Run.class);
+        if (jenkinsRun != null) {
+            jenkinsRun.addAction(run.action);
+        }
+
+        BuildkiteStepSupport.indexBuild(getContext(), this.step.getOrganization(), pipeline, run.build);
+    }
+
+    private void pollRunningNodes(BuildkiteApiClient client, Map<String, NodeRun> runs, PrintStream console) throws IOException, InterruptedException {
+        for (NodeRun run : runs.values()) {
+            if (run.state != NodeState.RUNNING) {
+                continue;
+            }
+
+            String pipeline = run.node.getPipeline();
+            BuildkiteBuild build;
+            try {
+                // A forced refresh has to see Buildkite's current state, which the shared build cache may lag behind
+                build = run.wait.takeRefresh()
+                        ? client.refreshBuild(this.step.getOrganization(), pipeline, run.build.getNumber())
+                        : client.getBuild(this.step.getOrganization(), pipeline, run.build.getNumber());
+            } catch (RuntimeException e) {
+                if (this.deadline.isExpired() || e instanceof BuildkiteInterruptedException) {
+                    throw e;
+                }
+                run.state = NodeState.FAILED;
+                console.println(String.format("%s: failed to get Buildkite build: %s", run.node.getName(), e.getMessage()));
+                releaseWait(run);
+                continue;
+            }
+
+            run.build = build;
+            run.wait.recordPoll(build.getState());
+            run.action.recordPoll(build);
+
+            if (build.buildFinished()) {
+                run.state = build.buildPassed() ? NodeState.PASSED : NodeState.FAILED;
+                console.println(String.format("%s: %s/%s#%s finished with state: %s",
+                        run.node.getName(),
+                        this.step.getOrganization(),
+                        pipeline,
+                        build.getNumber(),
+                        build.getState()
+                ));
+                releaseWait(run);
+                BuildkiteStepSupport.recordBuildTimings(this.step.getOrganization(), pipeline, build);
+                BuildkiteStepSupport.indexBuild(getContext(), this.step.getOrganization(), pipeline, build);
+            }
+        }
+    }
+
+    private void releaseWait(NodeRun run) {
+        if (run.wait != null) {
+            BuildkiteStepSupport.unregisterWait(run.wait);
+            run.wait = null;
+        }
+    }
+
+    private void sleepUntilNextPoll(Map<String, NodeRun> runs, long millis) throws InterruptedException {
+        List<BuildkiteWait> waits = runningWaits(runs);
+        Instant nextPollAt = Instant.now().plusMillis(millis);
+        waits.forEach(wait -> wait.setNextPollAt(nextPollAt));
+
+        try {
+            sleepMillis(millis);
+        } finally {
+            waits.forEach(wait -> wait.setNextPollAt(null));
+        }
+    }
+
+    /**
+     * Suspends polling and creating builds while the Jenkins build is paused, the same way as
+     * {@code buildkite(…)} does: until the build is resumed, a refresh is requested, or the deadline passes.
+     */
+    private void awaitResume(Map<String, NodeRun> runs, PrintStream console) throws InterruptedException {
+        console.println("Jenkins build paused, suspending polling of the Buildkite graph");
+
+        List<BuildkiteWait> waits = runningWaits(runs);
+        for (BuildkiteWait wait : waits) {
+            wait.setPaused(true);
+            BuildkiteMetrics.get().waitPaused();
+        }
+
+        boolean paused = true;
+        try {
+            while (paused && !this.deadline.isExpired() && waits.stream().noneMatch(BuildkiteWait::isRefreshPending)) {
+                sleepMillis(this.deadline.clampMillis(BuildkiteStepSupport.PAUSE_CHECK_MILLIS));
+                paused = this.isBuildPaused();
+            }
+        } finally {
+            for (BuildkiteWait wait : waits) {
+                wait.setPaused(false);
+                BuildkiteMetrics.get().waitResumed();
+            }
+        }
+
+        if (!paused) {
+            console.println("Jenkins build resumed, re-attaching to the Buildkite graph");
+        }
+    }
+
+    private static List<BuildkiteWait> runningWaits(Map<String, NodeRun> runs) {
+        return runs.values().stream()
+                .filter(run -> run.wait != null)
+                .map(run -> run.wait)
+                .toList();
+    }
+
+    private Map<String, BuildkiteBuildResult> handleTimeout(BuildkiteApiClient client, Map<String, NodeRun> runs, PrintStream console) {
+        console.println(String.format("Timed out after %d minutes waiting for the Buildkite graph", this.step.getTimeout()));
+
+        if (this.step.isCancelOnTimeout()) {
+            for (NodeRun run : runs.values()) {
+                if (run.state == NodeState.RUNNING) {
+                    BuildkiteStepSupport.cancelBuild(client, this.step.getOrganization(), run.node.getPipeline(),
+                            run.build.getNumber(), console);
+                }
+            }
+        }
+
+        printSummary(runs, console);
+
+        this.getContext().onFailure(new FlowInterruptedException(Result.ABORTED));
+        return null;
+    }
+
+    private CreateBuildRequest generateCreateBuildRequest(BuildkiteDagNode node) {
+        var metaData = new LinkedHashMap<String, String>();
+        // Lets the client find the build after a create request whose response was lost, instead of creating it twice
+        metaData.put(CreateBuildRequest.IDEMPOTENCY_KEY, BuildkiteStepSupport.idempotencyKey(getContext(), node.getName()));
+
+        return CreateBuildRequest.builder()
+                .branch(node.getBranch() != null ? node.getBranch() : this.step.getBranch())
+                .commit(node.getCommit() != null ? node.getCommit() : this.step.getCommit())
+                .message(node.getMessage() != null ? node.getMessage() : this.step.getMessage())
+                .metaData(metaData)
+                .build();
+    }
+
+    private void printSummary(Map<String, NodeRun> runs, PrintStream console) {
+        console.println("Buildkite graph:");
+        for (NodeRun run : runs.values()) {
+            if (run.build != null) {
+                console.println(String.format("  %s: %s (%s)", run.node.getName(), run.state, run.build.getWebUrl()));
+            } else {
+                console.println(String.format("  %s: %s", run.node.getName(), run.state));
+            }
+        }
+    }
+
+    // Allow sleep delays to be overridden in testing
+    protected void sleepMillis(long millis) throws InterruptedException {
+        this.wakeup.sleep(millis);
+    }
+
+    // Allow the pause state to be overridden in testing
+    protected boolean isBuildPaused() {
+        return BuildkiteStepSupport.isBuildPaused(getContext());
+    }
+}
@@ -0,0 +1,110 @@
+package io.jenkins.plugins.buildkite.step;
+
+import io.jenkins.plugins.buildkite.api_client.BuildkiteApiClient;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteTokenPool;
+import jenkins.util.Timer;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Organization and pipeline slugs per set of tokens, for completing and checking the step configuration.
+ * <p>
+ * Entries are keyed by the tokens' fingerprint rather than a credentials ID, so jobs that resolve the same ID to
+ * different credentials never see each other's slugs.
+ * <p>
+ * Lookups never call the API themselves: they return what is cached, possibly stale, and start a background
+ * refresh when it is older than {@link #TTL}. Until the first refresh finishes, lookups return {@code null}.
+ * Keys come from form fields, so at most {@link #MAX_ENTRIES} are kept, and a key whose first refresh fails, e.g. a
+ * mistyped organization, is dropped instead of being remembered.
+ */
+final class BuildkiteSlugCache {
+    private static final Logger LOGGER = Logger.getLogger(BuildkiteSlugCache.class.getName());
+    static final Duration TTL = Duration.ofMinutes(10);
+    // Failed refreshes of slugs already cached are retried sooner than the TTL, but not on every keystroke
+    static final Duration RETRY_AFTER = Duration.ofMinutes(1);
+    static final int MAX_ENTRIES = 500;
+
+    private static final BuildkiteSlugCache INSTANCE = new BuildkiteSlugCache(
+            command -> Timer.get().submit(command),
+            System::currentTimeMillis
+    );
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private final Executor executor;
+    private final LongSupplier clockMillis;
+
+    BuildkiteSlugCache(Executor executor, LongSupplier clockMillis) {
+        this.executor = executor;
+        this.clockMillis = clockMillis;
+    }
+
+    static BuildkiteSlugCache get() {
+        return INSTANCE;
+    }
+
+    List<String> getOrganizations(BuildkiteTokenPool tokens) {
+        return lookup(tokens.getFingerprint(), () -> new BuildkiteApiClient(tokens).listOrganizations());
+    }
+
+    List<String> getPipelines(BuildkiteTokenPool tokens, String organization) {
+        return lookup(tokens.getFingerprint() + "/" + organization, () -> new BuildkiteApiClient(tokens).listPipelines(organization));
+    }
+
+    List<String> lookup(String key, Callable<List<String>> loader) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.computeIfAbsent(key, k -> new Entry());
+        }
+
+        if (clockMillis.getAsLong() >= entry.refreshAtMillis && entry.refreshing.compareAndSet(false, true)) {
+            executor.execute(() -> refresh(key, entry, loader));
+        }
+
+        return entry.slugs;
+    }
+
+    private void refresh(String key, Entry entry, Callable<List<String>> loader) {
+        try {
+            entry.slugs = List.copyOf(loader.call());
+            entry.refreshAtMillis = clockMillis.getAsLong() + TTL.toMillis();
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "Failed to refresh Buildkite slugs for " + key, e);
+            if (entry.slugs == null) {
+                synchronized (entries) {
+                    entries.remove(key, entry);
+                }
+            } else {
+                // Keep serving the slugs from the last successful refresh
+                entry.refreshAtMillis = clockMillis.getAsLong() + RETRY_AFTER.toMillis();
+            }
+        } finally {
+            entry.refreshing.set(false);
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static final class Entry {
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile List<String> slugs;
+        private volatile long refreshAtMillis;
+    }
+}
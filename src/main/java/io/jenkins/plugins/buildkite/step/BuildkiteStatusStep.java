@@ -0,0 +1,55 @@
+package io.jenkins.plugins.buildkite.step;
+
+import hudson.Extension;
+import hudson.model.TaskListener;
+import lombok.Getter;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import java.util.Set;
+
+/**
+ * Reads the current state of a build triggered with {@code buildkite(async: true)} into its handle.
+ */
+public class BuildkiteStatusStep extends Step {
+    @Getter private final BuildkiteBuildHandle build;
+
+    @DataBoundConstructor
+    public BuildkiteStatusStep(BuildkiteBuildHandle build) {
+        this.build = build;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) {
+        return new BuildkiteStatusStepExecution(this, context);
+    }
+
+    @Extension
+    public static class DescriptorImpl extends StepDescriptor {
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Set.of(
+                    TaskListener.class // Used in BuildkiteStatusStepExecution.run
+            );
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "buildkiteStatus";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Get the State of a Buildkite Build";
+        }
+
+        // The handle can only come from a script, so the Snippet Generator has nothing to offer
+        @Override
+        public boolean isAdvanced() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package io.jenkins.plugins.buildkite.step;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Result;
+import hudson.model.TaskListener;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteApiClient;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteApiException;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteBuild;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteInterruptedException;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteTokenPool;
+import org.jenkinsci.plugins.workflow.steps.FlowInterruptedException;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+
+import java.io.PrintStream;
+
+public class BuildkiteStatusStepExecution extends SynchronousNonBlockingStepExecution<BuildkiteBuildHandle> {
+    private static final long serialVersionUID = 1L; // Required for Serializable interface
+    private transient final BuildkiteStatusStep step;
+
+    public BuildkiteStatusStepExecution(@NonNull BuildkiteStatusStep step, @NonNull StepContext context) {
+        super(context);
+        this.step = step;
+    }
+
+    @Override
+    protected BuildkiteBuildHandle run() throws Exception {
+        TaskListener listener = getContext().get(TaskListener.class);
+        PrintStream console = listener.getLogger();
+        BuildkiteBuildHandle handle = this.step.getBuild();
+
+        BuildkiteTokenPool tokens = BuildkiteCredentials.findTokenPool(handle.getCredentialsId());
+        if (tokens == null) {
+            var errorMessage = BuildkiteCredentials.notFoundMessage(handle.getCredentialsId());
+            console.println(errorMessage);
+            this.getContext().onFailure(new FlowInterruptedException(Result.FAILURE));
+            return null;
+        }
+
+        try {
+            handle.update(fetch(tokens, handle));
+        } catch (BuildkiteInterruptedException e) {
+            console.println(String.format("Canceled while reading Buildkite build %s", handle));
+            this.getContext().onFailure(new FlowInterruptedException(Result.FAILURE));
+            return null;
+        } catch (BuildkiteApiException e) {
+            var errorMessage = String.format("Failed to get Buildkite build %s: %s", handle, e.getMessage());
+            console.println(errorMessage);
+            this.getContext().onFailure(new FlowInterruptedException(Result.FAILURE));
+            return null;
+        }
+
+        return handle;
+    }
+
+    // Allow the API request to be overridden in testing
+    BuildkiteBuild fetch(BuildkiteTokenPool tokens, BuildkiteBuildHandle handle) {
+        // Through the shared build cache, so scripts polling many handles to one build don't repeat requests
+        return new BuildkiteApiClient(tokens).getBuild(handle.getOrganization(), handle.getPipeline(), handle.getNumber());
+    }
+}
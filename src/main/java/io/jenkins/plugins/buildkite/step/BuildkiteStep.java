@@ -1,14 +1,16 @@
 package io.jenkins.plugins.buildkite.step;
 
-import com.cloudbees.plugins.credentials.common.StandardListBoxModel;
+import com.cloudbees.plugins.credentials.CredentialsProvider;
 import hudson.Extension;
+import hudson.Util;
 import hudson.model.Item;
 import hudson.model.Run;
 import hudson.model.TaskListener;
-import hudson.security.ACL;
+import hudson.util.ComboBoxModel;
+import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteTokenPool;
 import lombok.Getter;
-import org.jenkinsci.plugins.plaincredentials.StringCredentials;
 import org.jenkinsci.plugins.workflow.steps.Step;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
@@ -17,7 +19,9 @@ import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.verb.POST;
 
+import java.util.List;
 import java.util.Set;
 import java.util.logging.Logger;
 
@@ -31,6 +35,11 @@ public class BuildkiteStep extends Step {
     @Getter private String commit;
     @Getter private String message;
     @Getter private boolean async;
+    @Getter private int retryFailedJobs;
+    @Getter private int timeout;
+    @Getter private boolean cancelOnTimeout;
+    @Getter private int pollIntervalSeconds;
+    @Getter private boolean runOnAgent;
 
     @DataBoundConstructor
     public BuildkiteStep(String organization, String pipeline, String credentialsId) {
@@ -45,20 +54,17 @@ public class BuildkiteStep extends Step {
         this.branch = "main";
         this.commit = "HEAD";
         this.async = false;
+        this.retryFailedJobs = 0;
+        this.timeout = 0;
+        this.cancelOnTimeout = false;
+        this.pollIntervalSeconds = 0;
+        this.runOnAgent = false;
     }
 
     @Override
     public StepExecution start(StepContext context) {
         if (this.message == null) {
-            String fullDisplayName;
-
-            try {
-                fullDisplayName = context.get(Run.class).getFullDisplayName();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-
-            this.message = String.format("Triggered by Jenkins build \"%s\"", fullDisplayName);
+            this.message = BuildkiteStepSupport.defaultMessage(context);
         }
 
         return new BuildkiteStepExecution(this, context);
@@ -90,6 +96,40 @@ public class BuildkiteStep extends Step {
         this.async = async;
     }
 
+    @DataBoundSetter
+    public void setRetryFailedJobs(int retryFailedJobs) {
+        if (retryFailedJobs < 0) return;
+
+        this.retryFailedJobs = retryFailedJobs;
+    }
+
+    @DataBoundSetter
+    public void setTimeout(int timeout) {
+        if (timeout < 0) return;
+
+        this.timeout = timeout;
+    }
+
+    @DataBoundSetter
+    public void setCancelOnTimeout(boolean cancelOnTimeout) {
+        this.cancelOnTimeout = cancelOnTimeout;
+    }
+
+    /**
+     * Overrides the poll interval of the global configuration when greater than 0.
+     */
+    @DataBoundSetter
+    public void setPollIntervalSeconds(int pollIntervalSeconds) {
+        if (pollIntervalSeconds < 0) return;
+
+        this.pollIntervalSeconds = pollIntervalSeconds;
+    }
+
+    @DataBoundSetter
+    public void setRunOnAgent(boolean runOnAgent) {
+        this.runOnAgent = runOnAgent;
+    }
+
     @Extension
     public static class DescriptorImpl extends StepDescriptor {
         @Override
@@ -114,11 +154,105 @@ public class BuildkiteStep extends Step {
                 @AncestorInPath Item item,
                 @QueryParameter String credentialsId
         ) {
-            item.checkPermission(Item.BUILD);
+            return BuildkiteStepSupport.fillCredentialsIdItems(item);
+        }
+
+        @POST
+        public FormValidation doCheckCredentialsId(
+                @AncestorInPath Item item,
+                @QueryParameter String value
+        ) {
+            return BuildkiteStepSupport.checkCredentialsId(item, value);
+        }
+
+        // Organizations and pipelines are served from BuildkiteSlugCache, so typing in the
+        // snippet generator doesn't turn into API requests
+
+        @POST
+        public ComboBoxModel doFillOrganizationItems(
+                @AncestorInPath Item item,
+                @QueryParameter String credentialsId
+        ) {
+            BuildkiteTokenPool tokens = findTokens(item, credentialsId);
+            if (tokens == null) {
+                return new ComboBoxModel();
+            }
+
+            return toComboBoxModel(BuildkiteSlugCache.get().getOrganizations(tokens));
+        }
+
+        @POST
+        public ComboBoxModel doFillPipelineItems(
+                @AncestorInPath Item item,
+                @QueryParameter String credentialsId,
+                @QueryParameter String organization
+        ) {
+            BuildkiteTokenPool tokens = findTokens(item, credentialsId);
+            if (tokens == null || Util.fixEmptyAndTrim(organization) == null) {
+                return new ComboBoxModel();
+            }
+
+            return toComboBoxModel(BuildkiteSlugCache.get().getPipelines(tokens, organization.trim()));
+        }
+
+        @POST
+        public FormValidation doCheckOrganization(
+                @AncestorInPath Item item,
+                @QueryParameter String credentialsId,
+                @QueryParameter String value
+        ) {
+            BuildkiteTokenPool tokens = findTokens(item, credentialsId);
+            if (tokens == null || Util.fixEmptyAndTrim(value) == null) {
+                return FormValidation.ok();
+            }
+
+            List<String> organizations = BuildkiteSlugCache.get().getOrganizations(tokens);
+            if (organizations != null && !organizations.contains(value.trim())) {
+                return FormValidation.warning(String.format("Organization \"%s\" isn't accessible with these credentials", value.trim()));
+            }
+
+            return FormValidation.ok();
+        }
+
+        @POST
+        public FormValidation doCheckPipeline(
+                @AncestorInPath Item item,
+                @QueryParameter String credentialsId,
+                @QueryParameter String organization,
+                @QueryParameter String value
+        ) {
+            BuildkiteTokenPool tokens = findTokens(item, credentialsId);
+            if (tokens == null || Util.fixEmptyAndTrim(organization) == null || Util.fixEmptyAndTrim(value) == null) {
+                return FormValidation.ok();
+            }
+
+            List<String> pipelines = BuildkiteSlugCache.get().getPipelines(tokens, organization.trim());
+            if (pipelines != null && !pipelines.contains(value.trim())) {
+                return FormValidation.warning(String.format("Pipeline \"%s\" not found in organization \"%s\"", value.trim(), organization.trim()));
+            }
+
+            return FormValidation.ok();
+        }
+
+        /**
+         * Resolves the credentials as the job sees them, for users allowed to configure it and use its credentials.
+         *
+         * @return the tokens, or {@code null} if the user can't list slugs with them or they can't be found
+         */
+        static BuildkiteTokenPool findTokens(Item item, String credentialsId) {
+            if (item == null
+                    || !item.hasPermission(Item.CONFIGURE)
+                    || !item.hasPermission(CredentialsProvider.USE_ITEM)
+                    || Util.fixEmptyAndTrim(credentialsId) == null) {
+                return null;
+            }
+
+            return BuildkiteCredentials.findTokenPool(item, credentialsId);
+        }
 
-            return (new StandardListBoxModel())
-                    .includeEmptyValue()
-                    .includeAs(ACL.SYSTEM2, item, StringCredentials.class);
+        private static ComboBoxModel toComboBoxModel(List<String> slugs) {
+            // Still loading in the background, the next request will have them
+            return slugs == null ? new ComboBoxModel() : new ComboBoxModel(slugs);
         }
     }
 }
@@ -1,29 +1,47 @@
 package io.jenkins.plugins.buildkite.step;
 
-import com.cloudbees.plugins.credentials.CredentialsMatchers;
-import com.cloudbees.plugins.credentials.CredentialsProvider;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.EnvVars;
+import hudson.Launcher;
 import hudson.model.Result;
 import hudson.model.Run;
 import hudson.model.TaskListener;
-import hudson.security.ACL;
+import hudson.remoting.VirtualChannel;
+import io.jenkins.plugins.buildkite.BuildkiteGlobalConfiguration;
 import io.jenkins.plugins.buildkite.api_client.BuildkiteApiClient;
 import io.jenkins.plugins.buildkite.api_client.BuildkiteApiException;
 import io.jenkins.plugins.buildkite.api_client.BuildkiteBuild;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteInterruptedException;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteJob;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteTokenPool;
 import io.jenkins.plugins.buildkite.api_client.CreateBuildRequest;
-import org.jenkinsci.plugins.plaincredentials.StringCredentials;
-import org.jenkinsci.plugins.workflow.cps.CpsFlowExecution;
-import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import io.jenkins.plugins.buildkite.api_client.Deadline;
+import io.jenkins.plugins.buildkite.telemetry.BuildkiteMetrics;
+import io.jenkins.plugins.buildkite.telemetry.BuildkitePollEvent;
+import io.jenkins.plugins.buildkite.telemetry.BuildkiteSpan;
+import io.jenkins.plugins.buildkite.telemetry.BuildkiteTracer;
 import org.jenkinsci.plugins.workflow.steps.FlowInterruptedException;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
 
+import java.io.IOException;
 import java.io.PrintStream;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class BuildkiteStepExecution extends SynchronousNonBlockingStepExecution<Void> {
     private static final long serialVersionUID = 1L; // Required for Serializable interface
+    private static final int MAX_POLLS_UNTIL_RETRY_VISIBLE = 5;
     private transient final BuildkiteStep step;
-    private boolean buildPaused = false;
+    private transient Deadline deadline = Deadline.none();
+    private transient BuildkiteTracer tracer = BuildkiteTracer.noop();
+    private transient BuildkiteSpan triggerSpan;
+    private transient BuildkiteWait activeWait;
+    private transient BuildkiteBuildAction buildAction;
 
     public BuildkiteStepExecution(@NonNull BuildkiteStep step, @NonNull StepContext context) {
         super(context);
@@ -35,122 +53,452 @@ public class BuildkiteStepExecution extends SynchronousNonBlockingStepExecution<
         TaskListener listener = getContext().get(TaskListener.class);
         PrintStream console = listener.getLogger();
 
+        this.tracer = BuildkiteTracer.get();
+        this.triggerSpan = this.tracer.startSpan("buildkite.trigger", incomingTraceparent())
+                .setAttribute("buildkite.organization", this.step.getOrganization())
+                .setAttribute("buildkite.pipeline", this.step.getPipeline());
+
+        try {
+            return trigger(console);
+        } finally {
+            this.triggerSpan.end();
+        }
+    }
+
+    private Void trigger(PrintStream console) throws Exception {
         printCreatingBuild(console);
 
-        StringCredentials credentials = getCredentials(console);
-        if (credentials == null) {
+        BuildkiteTokenPool tokens = getTokens(console);
+        if (tokens == null) {
             return null;
         }
 
-        BuildkiteApiClient client = new BuildkiteApiClient(credentials.getSecret());
+        BuildkiteApiClient client = new BuildkiteApiClient(tokens);
+
+        if (this.step.getTimeout() > 0) {
+            this.deadline = Deadline.after(Duration.ofMinutes(this.step.getTimeout()));
+            client.setDeadline(this.deadline);
+        }
+
+        if (this.step.isRunOnAgent()) {
+            Launcher launcher = getContext().get(Launcher.class);
+            if (launcher != null && launcher.getChannel() != null) {
+                return triggerOnAgent(client, tokens, launcher.getChannel(), console);
+            }
+            console.println("runOnAgent requires the step to run inside a node block, polling from the controller instead");
+        }
 
         BuildkiteBuild build;
+        BuildkiteSpan createSpan = this.tracer.startChildSpan("buildkite.create", this.triggerSpan);
+        long createStartedAt = System.nanoTime();
         try {
             build = client.createBuild(
                     this.step.getOrganization(),
                     this.step.getPipeline(),
                     generateCreateBuildRequest()
             );
+            this.triggerSpan.setAttribute("buildkite.build.number", build.getNumber());
         } catch (BuildkiteApiException e) {
             var errorMessage = String.format("Failed to create Buildkite build: %s", e.getMessage());
             console.println(errorMessage);
             this.getContext().onFailure(new FlowInterruptedException(Result.FAILURE));
             return null;
+        } catch (RuntimeException e) {
+            if (!this.deadline.isExpired()) {
+                throw e;
+            }
+            return handleTimeout(client, null, console);
+        } finally {
+            createSpan.end();
         }
 
         printBuildCreated(build, console);
+        attachBuildAction(build, Duration.ofNanos(System.nanoTime() - createStartedAt).toMillis());
+        indexBuild(build);
 
         if (this.step.isAsync()) {
-            this.getContext().onSuccess(build);
+            recordTraffic(client);
+            this.getContext().onSuccess(buildHandle(build));
             return null;
         }
 
-        return waitForBuildCompletion(client, build, console);
+        try {
+            return waitForBuildCompletion(client, build, console);
+        } finally {
+            recordTraffic(client);
+        }
     }
 
-    private StringCredentials getCredentials(PrintStream console) {
-        // TODO: Tighten up this lookup
-        StringCredentials credentials = CredentialsMatchers.firstOrNull(
-                CredentialsProvider.lookupCredentialsInItem(
-                        StringCredentials.class,
-                        null,
-                        ACL.SYSTEM2
-                ),
-                CredentialsMatchers.withId(this.step.getCredentialsId())
+    /**
+     * Creates and polls the build from the agent, leaving the controller only to wait for the final build.
+     * Retries, pausing and the timing breakdown rely on polling from the controller and aren't available in this mode.
+     */
+    private Void triggerOnAgent(BuildkiteApiClient client, BuildkiteTokenPool tokens, VirtualChannel channel, PrintStream console) throws Exception {
+        var callable = new AgentBuildCallable(
+                this.step.getOrganization(),
+                this.step.getPipeline(),
+                generateCreateBuildRequest(),
+                tokens.getPrimaryToken(),
+                BuildkiteGlobalConfiguration.get().getApiBaseUrl(),
+                this.step.isAsync(),
+                this.deadline.isSet() ? Math.max(1, this.deadline.remainingMillis()) : 0,
+                initialPollDelayMillis(),
+                pollIntervalMillis(),
+                getContext().get(TaskListener.class)
         );
 
-        if (credentials == null) {
-            var errorMessage = String.format("Could not find Credentials with id: %s", this.step.getCredentialsId());
+        BuildkiteBuild build;
+        try {
+            build = channel.call(callable);
+        } catch (BuildkiteApiException e) {
+            var errorMessage = String.format("Buildkite API request failed on the agent: %s", e.getMessage());
             console.println(errorMessage);
             this.getContext().onFailure(new FlowInterruptedException(Result.FAILURE));
+            return null;
+        } catch (RuntimeException e) {
+            if (!this.deadline.isExpired()) {
+                throw e;
+            }
+            return handleTimeout(client, null, console);
+        }
+
+        indexBuild(build);
+
+        if (this.step.isAsync()) {
+            this.getContext().onSuccess(buildHandle(build));
+            return null;
+        }
+
+        if (!build.buildFinished()) {
+            return handleTimeout(client, build, console);
         }
 
-        return credentials;
+        printBuildFinished(build, console);
+        recordBuildTimings(build);
+
+        if (build.buildPassed()) {
+            this.getContext().onSuccess(BuildkiteBuildResult.of(build));
+        } else {
+            this.getContext().onFailure(new FlowInterruptedException(Result.FAILURE));
+        }
+
+        return null;
+    }
+
+    private BuildkiteBuildHandle buildHandle(BuildkiteBuild build) {
+        return new BuildkiteBuildHandle(
+                this.step.getCredentialsId(),
+                this.step.getOrganization(),
+                this.step.getPipeline(),
+                build
+        );
+    }
+
+    private void attachBuildAction(BuildkiteBuild build, long createLatencyMillis) throws IOException, InterruptedException {
+        this.buildAction = new BuildkiteBuildAction(this.step.getOrganization(), this.step.getPipeline(), build, createLatencyMillis);
+
+        Run<?, ?> run = getContext().get(Run.class);
+        if (run != null) {
+            run.addAction(this.buildAction);
+        }
+    }
+
+    private void indexBuild(BuildkiteBuild build) throws IOException, InterruptedException {
+        BuildkiteStepSupport.indexBuild(getContext(), this.step.getOrganization(), this.step.getPipeline(), build);
+    }
+
+    private void recordTraffic(BuildkiteApiClient client) {
+        this.buildAction.recordTraffic(client.getBytesSent(), client.getBytesReceived());
+    }
+
+    private BuildkiteTokenPool getTokens(PrintStream console) {
+        BuildkiteTokenPool tokens = BuildkiteCredentials.findTokenPool(this.step.getCredentialsId());
+
+        if (tokens == null) {
+            var errorMessage = BuildkiteCredentials.notFoundMessage(this.step.getCredentialsId());
+            console.println(errorMessage);
+            this.getContext().onFailure(new FlowInterruptedException(Result.FAILURE));
+        }
+
+        return tokens;
     }
 
     private CreateBuildRequest generateCreateBuildRequest() {
-        return CreateBuildRequest.builder()
+        var request = CreateBuildRequest.builder()
                 .branch(this.step.getBranch())
                 .commit(this.step.getCommit())
-                .message(this.step.getMessage())
-                .build();
+                .message(this.step.getMessage());
+
+        var metaData = new LinkedHashMap<String, String>();
+        // Lets the client find the build after a create request whose response was lost, instead of creating it twice
+        metaData.put(CreateBuildRequest.IDEMPOTENCY_KEY, BuildkiteStepSupport.idempotencyKey(getContext(), null));
+
+        if (this.tracer.isEnabled() && this.triggerSpan != null) {
+            // Lets tracing in the Buildkite build join this trace, through the agent environment or meta-data
+            String traceparent = this.triggerSpan.traceparent();
+            request.env(Map.of("TRACEPARENT", traceparent));
+            metaData.put("traceparent", traceparent);
+        }
+
+        return request.metaData(metaData).build();
+    }
+
+    private String incomingTraceparent() {
+        try {
+            EnvVars env = getContext().get(EnvVars.class);
+            return env != null ? env.get("TRACEPARENT") : null;
+        } catch (IOException | InterruptedException e) {
+            return null;
+        }
     }
 
     private Void waitForBuildCompletion(BuildkiteApiClient client, BuildkiteBuild build, PrintStream console) throws Exception {
+        this.activeWait = BuildkiteStepSupport.registerWait(this, getContext(), this.step.getOrganization(),
+                this.step.getPipeline(), build, new BuildkiteWait.Wakeup());
+        try {
+            return pollUntilFinished(client, build, console);
+        } finally {
+            BuildkiteStepSupport.unregisterWait(this.activeWait);
+            this.activeWait = null;
+        }
+    }
+
+    private Void pollUntilFinished(BuildkiteApiClient client, BuildkiteBuild build, PrintStream console) throws Exception {
         console.println("Waiting for build to finish");
-        sleepMillis(2000);
+        long pollIntervalMillis = pollIntervalMillis();
+
+        sleepMillis(this.deadline.clampMillis(initialPollDelayMillis()));
 
+        var reporter = new BuildProgressReporter(console);
+        int retriesRemaining = this.step.getRetryFailedJobs();
+        Set<String> retriedJobIds = Set.of();
+        int pollsSinceRetry = 0;
         BuildkiteBuild pollingBuild = null;
-        while (pollingBuild == null || !pollingBuild.buildFinished()) {
+        while (pollingBuild == null || !pollingBuild.buildFinished() || !retriedJobIds.isEmpty()) {
+            if (this.deadline.isExpired()) {
+                return handleTimeout(client, build, console);
+            }
+
+            var pollEvent = new BuildkitePollEvent();
+            pollEvent.begin();
+            BuildkiteSpan pollSpan = this.tracer.startChildSpan("buildkite.poll", this.triggerSpan);
+
             try {
-                pollingBuild = client.getBuild(
-                        this.step.getOrganization(),
-                        this.step.getPipeline(),
-                        build.getNumber()
-                );
+                // A forced refresh, or a retry, has to see Buildkite's current state, which the shared build cache
+                // may lag behind
+                boolean fresh = this.activeWait.takeRefresh() || !retriedJobIds.isEmpty();
+                pollingBuild = pollBuild(client, build.getNumber(), fresh);
+                pollSpan.setAttribute("buildkite.build.state", pollingBuild.getState());
             } catch (BuildkiteApiException e) {
                 var errorMessage = String.format("Failed to get Buildkite build status: %s", e.getMessage());
                 console.println(errorMessage);
                 this.getContext().onFailure(new FlowInterruptedException(Result.FAILURE));
                 return null;
+            } catch (BuildkiteInterruptedException e) {
+                // Stopped while waiting for another step's request of the same build
+                console.println("Wait canceled");
+                this.getContext().onFailure(new FlowInterruptedException(Result.FAILURE));
+                return null;
+            } catch (RuntimeException e) {
+                if (!this.deadline.isExpired()) {
+                    throw e;
+                }
+                return handleTimeout(client, build, console);
+            } finally {
+                pollSpan.end();
             }
 
-            console.println(String.format("  %s", pollingBuild.getState()));
+            this.activeWait.recordPoll(pollingBuild.getState());
+            if (this.buildAction != null) {
+                this.buildAction.recordPoll(pollingBuild);
+            }
+            reporter.report(pollingBuild);
+            commitPollEvent(pollEvent, pollingBuild);
+
+            // The API is eventually consistent, so the build may still look finished right after a retry. Its state
+            // only counts once the retried jobs have been replaced, or after a few polls in case they never will be.
+            if (!retriedJobIds.isEmpty()
+                    && (retriesVisible(pollingBuild, retriedJobIds) || ++pollsSinceRetry >= MAX_POLLS_UNTIL_RETRY_VISIBLE)) {
+                retriedJobIds = Set.of();
+            }
+
+            if (retriedJobIds.isEmpty() && pollingBuild.buildFinished() && !pollingBuild.buildPassed() && retriesRemaining > 0) {
+                try {
+                    retriedJobIds = retryFailedJobs(client, pollingBuild, retriesRemaining, console);
+                    if (!retriedJobIds.isEmpty()) {
+                        retriesRemaining--;
+                        pollsSinceRetry = 0;
+                    }
+                } catch (BuildkiteApiException e) {
+                    var errorMessage = String.format("Failed to retry Buildkite jobs: %s", e.getMessage());
+                    console.println(errorMessage);
+                    this.getContext().onFailure(new FlowInterruptedException(Result.FAILURE));
+                    return null;
+                }
+            }
 
             try {
-                sleepMillis(7000);
+                sleepMillis(this.deadline.clampMillis(pollIntervalMillis));
+
+                if (this.isBuildPaused()) {
+                    awaitResume(build, console);
+                }
             } catch (InterruptedException e) {
                 console.println("Wait canceled");
                 this.getContext().onFailure(new FlowInterruptedException(Result.FAILURE));
                 return null;
             }
+        }
+
+        BuildkiteSpan completeSpan = this.tracer.startChildSpan("buildkite.complete", this.triggerSpan)
+                .setAttribute("buildkite.build.state", pollingBuild.getState());
+        this.triggerSpan.setAttribute("buildkite.build.state", pollingBuild.getState());
 
-            this.buildPaused = this.isBuildPaused();
-            if (this.buildPaused) {
-                break;
+        try {
+            printBuildFinished(pollingBuild, console);
+            recordBuildTimings(pollingBuild);
+            indexBuild(pollingBuild);
+
+            if (pollingBuild.buildPassed()) {
+                this.getContext().onSuccess(BuildkiteBuildResult.of(pollingBuild));
+            } else {
+                this.getContext().onFailure(new FlowInterruptedException(Result.FAILURE));
             }
+        } finally {
+            completeSpan.end();
         }
+        return null;
+    }
 
-        if (this.buildPaused) {
-            console.println("Wait canceled - Jenkins build was paused.");
-            this.getContext().onFailure(new FlowInterruptedException(Result.FAILURE));
-            return null;
+    private BuildkiteBuild pollBuild(BuildkiteApiClient client, int buildNumber, boolean fresh) {
+        return fresh
+                ? client.refreshBuild(this.step.getOrganization(), this.step.getPipeline(), buildNumber)
+                : client.getBuild(this.step.getOrganization(), this.step.getPipeline(), buildNumber);
+    }
+
+    /**
+     * Suspends polling while the Jenkins build is paused. Only the in-memory pause flag is checked, so no Buildkite
+     * API requests are made until the build is resumed, a refresh is requested, or the step's deadline passes.
+     * Pipeline has no event for pausing and resuming, so the flag is checked every second, sleeping on the wait
+     * so that a refresh from the waits page ends the pause check right away.
+     */
+    private void awaitResume(BuildkiteBuild build, PrintStream console) throws InterruptedException {
+        console.println(String.format("Jenkins build paused, suspending polling of %s/%s#%s",
+                this.step.getOrganization(),
+                this.step.getPipeline(),
+                build.getNumber()
+        ));
+
+        this.activeWait.setPaused(true);
+        BuildkiteMetrics.get().waitPaused();
+        boolean paused = true;
+        try {
+            while (paused && !this.deadline.isExpired() && !this.activeWait.isRefreshPending()) {
+                sleepMillis(this.deadline.clampMillis(BuildkiteStepSupport.PAUSE_CHECK_MILLIS));
+                paused = this.isBuildPaused();
+            }
+        } finally {
+            this.activeWait.setPaused(false);
+            BuildkiteMetrics.get().waitResumed();
         }
 
-        printBuildFinished(pollingBuild, console);
+        if (!paused) {
+            console.println(String.format("Jenkins build resumed, re-attaching to %s/%s#%s",
+                    this.step.getOrganization(),
+                    this.step.getPipeline(),
+                    build.getNumber()
+            ));
+        }
+    }
 
-        if (pollingBuild.buildPassed()) {
-            this.getContext().onSuccess(build);
-        } else {
-            this.getContext().onFailure(new FlowInterruptedException(Result.FAILURE));
+    private Void handleTimeout(BuildkiteApiClient client, BuildkiteBuild build, PrintStream console) {
+        var message = String.format("Timed out after %d minutes waiting for %s/%s",
+                this.step.getTimeout(),
+                this.step.getOrganization(),
+                this.step.getPipeline()
+        );
+        console.println(build == null ? message : String.format("%s#%s", message, build.getNumber()));
+
+        if (build != null && this.step.isCancelOnTimeout()) {
+            BuildkiteStepSupport.cancelBuild(client, this.step.getOrganization(), this.step.getPipeline(), build.getNumber(), console);
         }
 
+        this.getContext().onFailure(new FlowInterruptedException(Result.ABORTED));
         return null;
     }
 
+    /**
+     * @return the IDs of the retried jobs, empty if there was nothing to retry
+     */
+    private Set<String> retryFailedJobs(BuildkiteApiClient client, BuildkiteBuild build, int retriesRemaining, PrintStream console) {
+        List<BuildkiteJob> jobs = build.retriableJobs();
+        if (jobs.isEmpty()) {
+            return Set.of();
+        }
+
+        var message = String.format("Retrying %d failed jobs of %s/%s#%s (retry %d of %d)",
+                jobs.size(),
+                this.step.getOrganization(),
+                this.step.getPipeline(),
+                build.getNumber(),
+                this.step.getRetryFailedJobs() - retriesRemaining + 1,
+                this.step.getRetryFailedJobs()
+        );
+        console.println(message);
+
+        for (BuildkiteJob job : jobs) {
+            client.retryJob(this.step.getOrganization(), this.step.getPipeline(), build.getNumber(), job.getId());
+            BuildkiteMetrics.get().recordRetry();
+            console.println(String.format("  retried %s", job.getName()));
+        }
+
+        return jobs.stream().map(BuildkiteJob::getId).collect(Collectors.toSet());
+    }
+
+    /**
+     * @return whether the build reflects the retry of the given jobs: it is running again or passed,
+     * or each of the jobs is marked as retried, i.e. its replacement exists
+     */
+    static boolean retriesVisible(BuildkiteBuild build, Set<String> retriedJobIds) {
+        if (!build.buildFinished() || build.buildPassed()) {
+            return true;
+        }
+
+        return build.getJobs().stream()
+                .filter(job -> retriedJobIds.contains(job.getId()))
+                .allMatch(BuildkiteJob::isRetried);
+    }
+
+    private void commitPollEvent(BuildkitePollEvent event, BuildkiteBuild build) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.organization = this.step.getOrganization();
+            event.pipeline = this.step.getPipeline();
+            event.buildNumber = build.getNumber();
+            event.state = build.getState();
+            event.commit();
+        }
+    }
+
+    private void recordBuildTimings(BuildkiteBuild build) {
+        BuildkiteStepSupport.recordBuildTimings(this.step.getOrganization(), this.step.getPipeline(), build);
+    }
+
+    private long initialPollDelayMillis() {
+        return BuildkiteStepSupport.initialPollDelayMillis();
+    }
+
+    private long pollIntervalMillis() {
+        return BuildkiteStepSupport.pollIntervalMillis(this.step.getPollIntervalSeconds());
+    }
+
     // Allow sleep delays to be overridden in testing
     protected void sleepMillis(long millis) throws InterruptedException {
-        Thread.sleep(millis);
+        if (this.activeWait != null) {
+            this.activeWait.sleep(millis);
+        } else {
+            Thread.sleep(millis);
+        }
     }
 
     private void printCreatingBuild(PrintStream console) {
@@ -185,19 +533,8 @@ public class BuildkiteStepExecution extends SynchronousNonBlockingStepExecution<
         console.println(message);
     }
 
-    private boolean isBuildPaused() {
-        Run<?, ?> run = null;
-
-        try {
-            run = getContext().get(Run.class);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-
-        if (run instanceof WorkflowRun workflowRun) {
-            var execution = (CpsFlowExecution) workflowRun.getExecution();
-            return execution != null && execution.isPaused();
-        }
-        return false;
+    // Allow the pause state to be overridden in testing
+    protected boolean isBuildPaused() {
+        return BuildkiteStepSupport.isBuildPaused(getContext());
     }
 }
@@ -0,0 +1,196 @@
+package io.jenkins.plugins.buildkite.step;
+
+import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.cloudbees.plugins.credentials.common.StandardListBoxModel;
+import hudson.model.Item;
+import hudson.model.Run;
+import hudson.security.ACL;
+import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
+import io.jenkins.plugins.buildkite.BuildkiteGlobalConfiguration;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteApiClient;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteBuild;
+import io.jenkins.plugins.buildkite.api_client.Deadline;
+import io.jenkins.plugins.buildkite.index.BuildkiteBuildIndex;
+import io.jenkins.plugins.buildkite.index.BuildkiteBuildRecord;
+import io.jenkins.plugins.buildkite.telemetry.BuildkiteMetrics;
+import org.jenkinsci.plugins.plaincredentials.StringCredentials;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowExecution;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the {@code buildkite(…)} and {@code buildkiteDag(…)} steps do the same way for each build they trigger.
+ */
+final class BuildkiteStepSupport {
+    // How often a paused Jenkins build is checked for being resumed; Pipeline has no event for it
+    static final long PAUSE_CHECK_MILLIS = 1000;
+    private static final Duration CANCEL_TIMEOUT = Duration.ofSeconds(30);
+
+    private BuildkiteStepSupport() {
+    }
+
+    static String defaultMessage(StepContext context) {
+        String fullDisplayName;
+
+        try {
+            fullDisplayName = context.get(Run.class).getFullDisplayName();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        return String.format("Triggered by Jenkins build \"%s\"", fullDisplayName);
+    }
+
+    static ListBoxModel fillCredentialsIdItems(Item item) {
+        item.checkPermission(Item.BUILD);
+
+        return (new StandardListBoxModel())
+                .includeEmptyValue()
+                .includeAs(ACL.SYSTEM2, item, StringCredentials.class);
+    }
+
+    /**
+     * Validates each ID of a comma-separated list of credentials IDs, naming the ones that can't be found.
+     */
+    static FormValidation checkCredentialsId(Item item, String value) {
+        if (item == null || !item.hasPermission(Item.EXTENDED_READ) && !item.hasPermission(CredentialsProvider.USE_ITEM)) {
+            return FormValidation.ok();
+        }
+
+        List<String> missing = BuildkiteCredentials.findMissing(item, value);
+        if (!missing.isEmpty()) {
+            return FormValidation.error(String.format("Could not find Credentials with id: %s", String.join(", ", missing)));
+        }
+
+        return FormValidation.ok();
+    }
+
+    /**
+     * @param name distinguishes the builds of one step, {@code null} if it creates a single build
+     */
+    static String idempotencyKey(StepContext context, String name) {
+        String runId = null;
+        try {
+            Run<?, ?> run = context.get(Run.class);
+            runId = run != null ? run.getExternalizableId() : null;
+        } catch (IOException | InterruptedException e) {
+            // The random part alone is unique enough
+        }
+
+        // The run ID makes the key readable in Buildkite, the random part keeps it unique across controllers
+        String random = UUID.randomUUID().toString();
+        if (runId == null) {
+            return random;
+        }
+        return name != null ? String.format("%s/%s/%s", runId, name, random) : String.format("%s/%s", runId, random);
+    }
+
+    static void indexBuild(StepContext context, String organization, String pipeline, BuildkiteBuild build) throws IOException, InterruptedException {
+        Run<?, ?> run = context.get(Run.class);
+
+        BuildkiteBuildIndex.get().record(new BuildkiteBuildRecord(
+                organization,
+                pipeline,
+                build.getNumber(),
+                build.getCommit(),
+                build.getBranch(),
+                build.getState(),
+                build.getWebUrl(),
+                run != null ? run.getExternalizableId() : null,
+                System.currentTimeMillis()
+        ));
+    }
+
+    static void recordBuildTimings(String organization, String pipeline, BuildkiteBuild build) {
+        BuildkiteMetrics.get().recordBuildTimings(
+                organization,
+                pipeline,
+                millisBetween(build.getCreatedAt(), build.getStartedAt()),
+                millisBetween(build.getStartedAt(), build.getFinishedAt())
+        );
+    }
+
+    static long initialPollDelayMillis() {
+        return TimeUnit.SECONDS.toMillis(BuildkiteGlobalConfiguration.get().getInitialPollDelaySeconds());
+    }
+
+    /**
+     * @param pollIntervalSeconds the step's own poll interval, used when greater than 0
+     */
+    static long pollIntervalMillis(int pollIntervalSeconds) {
+        return TimeUnit.SECONDS.toMillis(pollIntervalSeconds > 0
+                ? pollIntervalSeconds
+                : BuildkiteGlobalConfiguration.get().getPollIntervalSeconds());
+    }
+
+    /**
+     * Lists the wait on the waits page and counts it in the metrics until {@link #unregisterWait} is called.
+     */
+    static BuildkiteWait registerWait(StepExecution execution, StepContext context, String organization, String pipeline,
+                                      BuildkiteBuild build, BuildkiteWait.Wakeup wakeup) throws IOException, InterruptedException {
+        Run<?, ?> run = context.get(Run.class);
+
+        var wait = new BuildkiteWait(
+                execution,
+                run != null ? run.getFullDisplayName() : null,
+                run != null ? run.getUrl() : null,
+                organization,
+                pipeline,
+                build.getNumber(),
+                build.getWebUrl(),
+                wakeup
+        );
+        BuildkiteWaitRegistry.get().register(wait);
+        BuildkiteMetrics.get().waitStarted();
+        return wait;
+    }
+
+    static void unregisterWait(BuildkiteWait wait) {
+        BuildkiteMetrics.get().waitFinished();
+        BuildkiteWaitRegistry.get().unregister(wait);
+    }
+
+    /**
+     * Cancels a build once the step's timeout expired, reporting a failure to cancel rather than throwing it.
+     */
+    static void cancelBuild(BuildkiteApiClient client, String organization, String pipeline, int number, PrintStream console) {
+        // The step's own deadline has passed, so the cancel request gets a short budget of its own
+        client.setDeadline(Deadline.after(CANCEL_TIMEOUT));
+
+        try {
+            client.cancelBuild(organization, pipeline, number);
+            console.println(String.format("  canceled %s/%s#%s", organization, pipeline, number));
+        } catch (RuntimeException e) {
+            console.println(String.format("Failed to cancel Buildkite build: %s", e.getMessage()));
+        }
+    }
+
+    static boolean isBuildPaused(StepContext context) {
+        Run<?, ?> run = null;
+
+        try {
+            run = context.get(Run.class);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        if (run instanceof WorkflowRun workflowRun && workflowRun.getExecution() instanceof CpsFlowExecution execution) {
+            return execution.isPaused();
+        }
+        return false;
+    }
+
+    private static long millisBetween(Instant from, Instant to) {
+        return from == null || to == null ? -1 : Duration.between(from, to).toMillis();
+    }
+}
@@ -0,0 +1,49 @@
+package io.jenkins.plugins.buildkite.step;
+
+import hudson.model.Run;
+import jenkins.model.RunAction2;
+import lombok.Getter;
+
+public class BuildkiteTestResultAction implements RunAction2 {
+    @Getter private final String organization;
+    @Getter private final String pipeline;
+    @Getter private final int buildNumber;
+    @Getter private final BuildkiteTestResults results;
+    private transient Run<?, ?> run;
+
+    public BuildkiteTestResultAction(String organization, String pipeline, int buildNumber, BuildkiteTestResults results) {
+        this.organization = organization;
+        this.pipeline = pipeline;
+        this.buildNumber = buildNumber;
+        this.results = results;
+    }
+
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    @Override
+    public void onAttached(Run<?, ?> run) {
+        this.run = run;
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> run) {
+        this.run = run;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return String.format("Buildkite Test Results: %s/%s#%s", organization, pipeline, buildNumber);
+    }
+
+    @Override
+    public String getUrlName() {
+        return null;
+    }
+}
@@ -0,0 +1,75 @@
+package io.jenkins.plugins.buildkite.step;
+
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Summary of the JUnit reports of a Buildkite build.
+ * Only counters and a capped list of failed test cases are kept, so its size doesn't depend on the size of the reports.
+ */
+public class BuildkiteTestResults implements Serializable {
+    private static final long serialVersionUID = 1L;
+    static final int MAX_FAILED_TESTS = 100;
+    static final int MAX_MESSAGE_LENGTH = 500;
+
+    @Getter private int total;
+    @Getter private int failed;
+    @Getter private int skipped;
+    @Getter private double durationSeconds;
+    private final List<FailedTest> failedTests = new ArrayList<>();
+
+    public int getPassed() {
+        return total - failed - skipped;
+    }
+
+    public List<FailedTest> getFailedTests() {
+        return Collections.unmodifiableList(failedTests);
+    }
+
+    void addPassed(double durationSeconds) {
+        this.total++;
+        this.durationSeconds += durationSeconds;
+    }
+
+    void addSkipped(double durationSeconds) {
+        this.total++;
+        this.skipped++;
+        this.durationSeconds += durationSeconds;
+    }
+
+    void addFailed(String className, String name, String message, double durationSeconds) {
+        this.total++;
+        this.failed++;
+        this.durationSeconds += durationSeconds;
+
+        if (failedTests.size() < MAX_FAILED_TESTS) {
+            failedTests.add(new FailedTest(className, name, truncate(message)));
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_MESSAGE_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_MESSAGE_LENGTH) + "…";
+    }
+
+    @Getter
+    public static class FailedTest implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String className;
+        private final String name;
+        private final String message;
+
+        FailedTest(String className, String name, String message) {
+            this.className = className;
+            this.name = name;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package io.jenkins.plugins.buildkite.step;
+
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A {@code buildkite(…)} step, or a node of a {@code buildkiteDag(…)} step, that is currently waiting for its Buildkite
+ * build to finish. The polling thread records every poll here, and sleeps on its {@link Wakeup} between polls so that
+ * a refresh can wake it early.
+ */
+public class BuildkiteWait {
+    private final String id = UUID.randomUUID().toString();
+    private final StepExecution execution;
+    private final String runName;
+    private final String runUrl;
+    private final String organization;
+    private final String pipeline;
+    private final int buildNumber;
+    private final String webUrl;
+    private final Instant startedAt = Instant.now();
+    private final Wakeup wakeup;
+    private volatile String lastState;
+    private volatile Instant lastPollAt;
+    private volatile Instant nextPollAt;
+    private volatile boolean paused;
+    private boolean refreshPending;
+
+    BuildkiteWait(StepExecution execution, String runName, String runUrl, String organization, String pipeline, int buildNumber, String webUrl) {
+        this(execution, runName, runUrl, organization, pipeline, buildNumber, webUrl, new Wakeup());
+    }
+
+    /**
+     * @param wakeup shared by the waits one thread polls, so that refreshing any of them wakes it
+     */
+    BuildkiteWait(StepExecution execution, String runName, String runUrl, String organization, String pipeline, int buildNumber, String webUrl, Wakeup wakeup) {
+        this.execution = execution;
+        this.runName = runName;
+        this.runUrl = runUrl;
+        this.organization = organization;
+        this.pipeline = pipeline;
+        this.buildNumber = buildNumber;
+        this.webUrl = webUrl;
+        this.wakeup = wakeup;
+    }
+
+    void recordPoll(String state) {
+        this.lastState = state;
+        this.lastPollAt = Instant.now();
+    }
+
+    /**
+     * Sleeps until the next poll is due, or a refresh is requested.
+     */
+    void sleep(long millis) throws InterruptedException {
+        this.nextPollAt = Instant.ofEpochMilli(System.currentTimeMillis() + millis);
+        try {
+            wakeup.sleep(millis);
+        } finally {
+            this.nextPollAt = null;
+        }
+    }
+
+    /**
+     * Makes the waiting step poll its build right away, bypassing the build cache.
+     */
+    public void refresh() {
+        synchronized (this) {
+            refreshPending = true;
+        }
+        wakeup.wake();
+    }
+
+    synchronized boolean isRefreshPending() {
+        return refreshPending;
+    }
+
+    void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    /**
+     * @return whether polling is suspended because the Jenkins build is paused
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * @return whether a refresh was requested since the last call, i.e. the next poll must request the current state
+     */
+    synchronized boolean takeRefresh() {
+        boolean pending = refreshPending;
+        refreshPending = false;
+        return pending;
+    }
+
+    /**
+     * Stops the waiting step, failing it with the given cause. The Buildkite build itself keeps running.
+     */
+    public void cancel(Throwable cause) {
+        execution.stop(cause);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getRunName() {
+        return runName;
+    }
+
+    public String getRunUrl() {
+        return runUrl;
+    }
+
+    public String getOrganization() {
+        return organization;
+    }
+
+    public String getPipeline() {
+        return pipeline;
+    }
+
+    public int getBuildNumber() {
+        return buildNumber;
+    }
+
+    public String getWebUrl() {
+        return webUrl;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public String getLastState() {
+        return lastState;
+    }
+
+    public Instant getLastPollAt() {
+        return lastPollAt;
+    }
+
+    public Instant getNextPollAt() {
+        return nextPollAt;
+    }
+
+    void setNextPollAt(Instant nextPollAt) {
+        this.nextPollAt = nextPollAt;
+    }
+
+    /**
+     * What a polling thread sleeps on between polls, until the time is up or a refresh wakes it.
+     */
+    static final class Wakeup {
+        private boolean requested;
+
+        synchronized void sleep(long millis) throws InterruptedException {
+            long wakeAt = System.currentTimeMillis() + millis;
+
+            long remaining = millis;
+            while (!requested && remaining > 0) {
+                wait(remaining);
+                remaining = wakeAt - System.currentTimeMillis();
+            }
+
+            requested = false;
+        }
+
+        synchronized void wake() {
+            requested = true;
+            notifyAll();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.jenkins.plugins.buildkite.step;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link BuildkiteWait}s of this controller, kept in memory only, so listing them never calls the Buildkite API.
+ */
+public final class BuildkiteWaitRegistry {
+    private static final BuildkiteWaitRegistry INSTANCE = new BuildkiteWaitRegistry();
+
+    private final Map<String, BuildkiteWait> waits = new ConcurrentHashMap<>();
+
+    private BuildkiteWaitRegistry() {
+    }
+
+    public static BuildkiteWaitRegistry get() {
+        return INSTANCE;
+    }
+
+    void register(BuildkiteWait wait) {
+        waits.put(wait.getId(), wait);
+    }
+
+    void unregister(BuildkiteWait wait) {
+        waits.remove(wait.getId());
+    }
+
+    /**
+     * @return the waits in the order they started
+     */
+    public List<BuildkiteWait> getWaits() {
+        return waits.values().stream()
+                .sorted(Comparator.comparing(BuildkiteWait::getStartedAt))
+                .toList();
+    }
+
+    public BuildkiteWait getWait(String id) {
+        return id != null ? waits.get(id) : null;
+    }
+}
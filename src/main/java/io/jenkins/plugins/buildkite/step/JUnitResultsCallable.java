@@ -0,0 +1,115 @@
+package io.jenkins.plugins.buildkite.step;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Parses downloaded JUnit reports on the agent with a streaming parser.
+ * Only the summary travels back over the channel; element text such as stack traces and captured output is never read.
+ */
+class JUnitResultsCallable extends MasterToSlaveFileCallable<BuildkiteTestResults> {
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> reportPaths;
+
+    JUnitResultsCallable(List<String> reportPaths) {
+        this.reportPaths = reportPaths;
+    }
+
+    @Override
+    public BuildkiteTestResults invoke(File directory, VirtualChannel channel) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        var results = new BuildkiteTestResults();
+        for (String reportPath : reportPaths) {
+            try (InputStream in = Files.newInputStream(new File(directory, reportPath).toPath())) {
+                parse(factory.createXMLStreamReader(in), results);
+            } catch (XMLStreamException e) {
+                throw new IOException(String.format("Failed to parse JUnit report %s: %s", reportPath, e.getMessage()), e);
+            }
+        }
+
+        return results;
+    }
+
+    static void parse(XMLStreamReader reader, BuildkiteTestResults results) throws XMLStreamException {
+        String className = null;
+        String name = null;
+        double duration = 0;
+        boolean inTestCase = false;
+        boolean failed = false;
+        boolean skipped = false;
+        String message = null;
+
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                        case "testcase" -> {
+                            inTestCase = true;
+                            className = reader.getAttributeValue(null, "classname");
+                            name = reader.getAttributeValue(null, "name");
+                            duration = parseDuration(reader.getAttributeValue(null, "time"));
+                            failed = false;
+                            skipped = false;
+                            message = null;
+                        }
+                        case "failure", "error" -> {
+                            if (inTestCase) {
+                                failed = true;
+                                message = reader.getAttributeValue(null, "message");
+                            }
+                        }
+                        case "skipped" -> {
+                            if (inTestCase) {
+                                skipped = true;
+                            }
+                        }
+                        default -> {
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "testcase".equals(reader.getLocalName())) {
+                    if (failed) {
+                        results.addFailed(className, name, message, duration);
+                    } else if (skipped) {
+                        results.addSkipped(duration);
+                    } else {
+                        results.addPassed(duration);
+                    }
+                    inTestCase = false;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static double parseDuration(String time) {
+        if (time == null || time.isEmpty()) {
+            return 0;
+        }
+
+        // Some reporters write times with the locale's separators: "1,234.5" groups thousands, "1,5" is a decimal.
+        String normalized = time.contains(".") ? time.replace(",", "") : time.replace(",", ".");
+
+        try {
+            return Double.parseDouble(normalized);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
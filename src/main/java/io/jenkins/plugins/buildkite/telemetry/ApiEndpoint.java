@@ -0,0 +1,32 @@
+package io.jenkins.plugins.buildkite.telemetry;
+
+public enum ApiEndpoint {
+    CREATE_BUILD("create_build", true),
+    GET_BUILD("get_build", false),
+    LIST_BUILDS("list_builds", false),
+    CANCEL_BUILD("cancel_build", true),
+    RETRY_JOB("retry_job", true),
+    LIST_ARTIFACTS("list_artifacts", false),
+    ARTIFACT_DOWNLOAD_URL("artifact_download_url", false),
+    LIST_ORGANIZATIONS("list_organizations", false),
+    LIST_PIPELINES("list_pipelines", false);
+
+    private final String metricName;
+    private final boolean mutating;
+
+    ApiEndpoint(String metricName, boolean mutating) {
+        this.metricName = metricName;
+        this.mutating = mutating;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+
+    /**
+     * @return whether requests change state in Buildkite, and so show up in its audit trail
+     */
+    public boolean isMutating() {
+        return mutating;
+    }
+}
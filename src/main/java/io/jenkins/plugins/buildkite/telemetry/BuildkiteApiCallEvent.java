@@ -0,0 +1,37 @@
+package io.jenkins.plugins.buildkite.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("io.jenkins.plugins.buildkite.ApiCall")
+@Label("Buildkite API Call")
+@Category({"Jenkins", "Buildkite"})
+@Description("A request to the Buildkite REST API, from sending the request until the response headers arrive")
+@StackTrace(false)
+public class BuildkiteApiCallEvent extends jdk.jfr.Event {
+    @Label("Endpoint")
+    public String endpoint;
+
+    @Label("Organization")
+    public String organization;
+
+    @Label("Pipeline")
+    public String pipeline;
+
+    @Label("Status Code")
+    @Description("HTTP status of the response, or 0 if the request failed without one")
+    public int statusCode;
+
+    @Label("Request Bytes")
+    @DataAmount
+    public long requestBytes;
+
+    @Label("Response Bytes")
+    @Description("Declared length of the response body, or -1 if unknown")
+    @DataAmount
+    public long responseBytes;
+}
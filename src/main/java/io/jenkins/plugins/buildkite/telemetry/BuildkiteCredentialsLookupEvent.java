@@ -0,0 +1,18 @@
+package io.jenkins.plugins.buildkite.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("io.jenkins.plugins.buildkite.CredentialsLookup")
+@Label("Buildkite Credentials Lookup")
+@Category({"Jenkins", "Buildkite"})
+@StackTrace(false)
+public class BuildkiteCredentialsLookupEvent extends jdk.jfr.Event {
+    @Label("Credentials ID")
+    public String credentialsId;
+
+    @Label("Found")
+    public boolean found;
+}
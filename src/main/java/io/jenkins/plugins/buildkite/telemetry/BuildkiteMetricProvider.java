@@ -0,0 +1,89 @@
+package io.jenkins.plugins.buildkite.telemetry;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.PeriodicWork;
+import jenkins.metrics.api.MetricProvider;
+import jenkins.metrics.api.Metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes {@link BuildkiteMetrics} through the Metrics plugin, when it is installed.
+ */
+@Extension(optional = true)
+public class BuildkiteMetricProvider extends MetricProvider {
+    private static final String PREFIX = "buildkite";
+
+    @NonNull
+    @Override
+    public MetricSet getMetricSet() {
+        BuildkiteMetrics metrics = BuildkiteMetrics.get();
+        Map<String, Metric> gauges = new HashMap<>();
+
+        for (ApiEndpoint endpoint : ApiEndpoint.values()) {
+            addLatencyGauges(gauges, MetricRegistry.name(PREFIX, "api", endpoint.getMetricName()), metrics.getApiLatency(endpoint));
+        }
+
+        gauges.put(MetricRegistry.name(PREFIX, "api", "responses", "2xx"), (Gauge<Long>) () -> metrics.getResponses(200, 299));
+        gauges.put(MetricRegistry.name(PREFIX, "api", "responses", "4xx"), (Gauge<Long>) () -> metrics.getResponses(400, 499));
+        gauges.put(MetricRegistry.name(PREFIX, "api", "responses", "429"), (Gauge<Long>) () -> metrics.getResponses(429, 429));
+        gauges.put(MetricRegistry.name(PREFIX, "api", "responses", "5xx"), (Gauge<Long>) () -> metrics.getResponses(500, 599));
+        gauges.put(MetricRegistry.name(PREFIX, "api", "errors"), (Gauge<Long>) metrics::getRequestErrors);
+        gauges.put(MetricRegistry.name(PREFIX, "api", "retries"), (Gauge<Long>) metrics::getRetries);
+        gauges.put(MetricRegistry.name(PREFIX, "api", "rate_limit", "limit"), (Gauge<Long>) metrics::getRateLimitLimit);
+        gauges.put(MetricRegistry.name(PREFIX, "api", "rate_limit", "remaining"), (Gauge<Long>) metrics::getRateLimitRemaining);
+        gauges.put(MetricRegistry.name(PREFIX, "waits", "in_flight"), (Gauge<Integer>) metrics::getInFlightWaits);
+        gauges.put(MetricRegistry.name(PREFIX, "waits", "paused"), (Gauge<Integer>) metrics::getPausedWaits);
+
+        return () -> gauges;
+    }
+
+    static void addLatencyGauges(Map<String, Metric> gauges, String name, LatencyHistogram histogram) {
+        gauges.put(MetricRegistry.name(name, "count"), (Gauge<Long>) histogram::getCount);
+        gauges.put(MetricRegistry.name(name, "mean"), (Gauge<Double>) histogram::getMeanMillis);
+        gauges.put(MetricRegistry.name(name, "p50"), (Gauge<Long>) () -> histogram.getPercentileMillis(0.50));
+        gauges.put(MetricRegistry.name(name, "p95"), (Gauge<Long>) () -> histogram.getPercentileMillis(0.95));
+        gauges.put(MetricRegistry.name(name, "p99"), (Gauge<Long>) () -> histogram.getPercentileMillis(0.99));
+    }
+
+    /**
+     * Pipelines are only known once builds have been triggered for them,
+     * so their gauges are registered as they show up rather than in {@link #getMetricSet()}.
+     */
+    @Extension(optional = true)
+    public static class PipelineMetricsPublisher extends PeriodicWork {
+        @Override
+        public long getRecurrencePeriod() {
+            return TimeUnit.MINUTES.toMillis(1);
+        }
+
+        @Override
+        protected void doRun() {
+            MetricRegistry registry = Metrics.metricRegistry();
+            BuildkiteMetrics metrics = BuildkiteMetrics.get();
+
+            register(registry, "trigger_to_start", metrics.getTriggerToStart());
+            register(registry, "run_duration", metrics.getRunDuration());
+        }
+
+        private static void register(MetricRegistry registry, String metricName, Map<String, LatencyHistogram> histograms) {
+            for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+                String name = MetricRegistry.name(PREFIX, "pipeline", entry.getKey().replace('/', '.'), metricName);
+                if (registry.getNames().contains(MetricRegistry.name(name, "count"))) {
+                    continue;
+                }
+
+                Map<String, Metric> gauges = new HashMap<>();
+                addLatencyGauges(gauges, name, entry.getValue());
+                gauges.forEach(registry::register);
+            }
+        }
+    }
+}
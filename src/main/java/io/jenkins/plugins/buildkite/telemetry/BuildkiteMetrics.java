@@ -0,0 +1,149 @@
+package io.jenkins.plugins.buildkite.telemetry;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Controller-wide counters and histograms describing this plugin's Buildkite traffic.
+ * Recording only touches atomics, so it is cheap enough for every request; publishing is left to
+ * {@link BuildkiteMetricProvider} when the Metrics plugin is installed.
+ */
+public final class BuildkiteMetrics {
+    private static final BuildkiteMetrics INSTANCE = new BuildkiteMetrics();
+
+    private final Map<ApiEndpoint, LatencyHistogram> apiLatency = new EnumMap<>(ApiEndpoint.class);
+    private final Map<Integer, LongAdder> responsesByStatus = new ConcurrentHashMap<>();
+    private final LongAdder requestErrors = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final AtomicLong rateLimitLimit = new AtomicLong(-1);
+    private final AtomicLong rateLimitRemaining = new AtomicLong(-1);
+    private final AtomicInteger inFlightWaits = new AtomicInteger();
+    private final AtomicInteger pausedWaits = new AtomicInteger();
+    private final Map<String, LatencyHistogram> triggerToStart = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> runDuration = new ConcurrentHashMap<>();
+
+    private BuildkiteMetrics() {
+        for (ApiEndpoint endpoint : ApiEndpoint.values()) {
+            apiLatency.put(endpoint, new LatencyHistogram());
+        }
+    }
+
+    public static BuildkiteMetrics get() {
+        return INSTANCE;
+    }
+
+    public void recordResponse(ApiEndpoint endpoint, int statusCode, long latencyMillis) {
+        apiLatency.get(endpoint).record(latencyMillis);
+        responsesByStatus.computeIfAbsent(statusCode, code -> new LongAdder()).increment();
+    }
+
+    public void recordError(ApiEndpoint endpoint, long latencyMillis) {
+        apiLatency.get(endpoint).record(latencyMillis);
+        requestErrors.increment();
+    }
+
+    public void recordRateLimit(long limit, long remaining) {
+        rateLimitLimit.set(limit);
+        rateLimitRemaining.set(remaining);
+    }
+
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    public void waitStarted() {
+        inFlightWaits.incrementAndGet();
+    }
+
+    public void waitFinished() {
+        inFlightWaits.decrementAndGet();
+    }
+
+    /**
+     * Moves a wait from the in-flight ones to the paused ones, which make no requests until they resume.
+     */
+    public void waitPaused() {
+        inFlightWaits.decrementAndGet();
+        pausedWaits.incrementAndGet();
+    }
+
+    public void waitResumed() {
+        pausedWaits.decrementAndGet();
+        inFlightWaits.incrementAndGet();
+    }
+
+    public void recordBuildTimings(String organization, String pipeline, long triggerToStartMillis, long runMillis) {
+        String key = organization + "/" + pipeline;
+
+        if (triggerToStartMillis >= 0) {
+            triggerToStart.computeIfAbsent(key, k -> LatencyHistogram.forBuildTimings()).record(triggerToStartMillis);
+        }
+        if (runMillis >= 0) {
+            runDuration.computeIfAbsent(key, k -> LatencyHistogram.forBuildTimings()).record(runMillis);
+        }
+    }
+
+    public LatencyHistogram getApiLatency(ApiEndpoint endpoint) {
+        return apiLatency.get(endpoint);
+    }
+
+    public Map<Integer, Long> getResponsesByStatus() {
+        var snapshot = new TreeMap<Integer, Long>();
+        responsesByStatus.forEach((code, count) -> snapshot.put(code, count.sum()));
+        return snapshot;
+    }
+
+    public long getResponses(int fromStatus, int toStatus) {
+        long total = 0;
+        for (Map.Entry<Integer, LongAdder> entry : responsesByStatus.entrySet()) {
+            if (entry.getKey() >= fromStatus && entry.getKey() <= toStatus) {
+                total += entry.getValue().sum();
+            }
+        }
+        return total;
+    }
+
+    public long getRequestErrors() {
+        return requestErrors.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * @return the request limit of the last rate limit window seen, or {@code -1} if not known yet
+     */
+    public long getRateLimitLimit() {
+        return rateLimitLimit.get();
+    }
+
+    /**
+     * @return the requests left in the last rate limit window seen, or {@code -1} if not known yet
+     */
+    public long getRateLimitRemaining() {
+        return rateLimitRemaining.get();
+    }
+
+    public int getInFlightWaits() {
+        return inFlightWaits.get();
+    }
+
+    public int getPausedWaits() {
+        return pausedWaits.get();
+    }
+
+    public Map<String, LatencyHistogram> getTriggerToStart() {
+        return Collections.unmodifiableMap(triggerToStart);
+    }
+
+    public Map<String, LatencyHistogram> getRunDuration() {
+        return Collections.unmodifiableMap(runDuration);
+    }
+}
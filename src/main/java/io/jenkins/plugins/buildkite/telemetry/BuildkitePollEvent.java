@@ -0,0 +1,26 @@
+package io.jenkins.plugins.buildkite.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("io.jenkins.plugins.buildkite.Poll")
+@Label("Buildkite Poll")
+@Category({"Jenkins", "Buildkite"})
+@Description("One poll of a watched Buildkite build, excluding the delay before the next poll")
+@StackTrace(false)
+public class BuildkitePollEvent extends jdk.jfr.Event {
+    @Label("Organization")
+    public String organization;
+
+    @Label("Pipeline")
+    public String pipeline;
+
+    @Label("Build Number")
+    public int buildNumber;
+
+    @Label("State")
+    public String state;
+}
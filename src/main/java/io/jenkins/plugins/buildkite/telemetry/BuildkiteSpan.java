@@ -0,0 +1,94 @@
+package io.jenkins.plugins.buildkite.telemetry;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A span following the OpenTelemetry data model, identified by W3C trace context IDs.
+ */
+public class BuildkiteSpan {
+    private static final Pattern TRACEPARENT = Pattern.compile("^00-([0-9a-f]{32})-([0-9a-f]{16})-[0-9a-f]{2}$");
+
+    private final BuildkiteTracer tracer;
+    private final String name;
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final long startEpochMillis;
+    private final Map<String, String> attributes = new LinkedHashMap<>();
+    private long endEpochMillis;
+
+    BuildkiteSpan(BuildkiteTracer tracer, String name, String traceId, String spanId, String parentSpanId) {
+        this.tracer = tracer;
+        this.name = name;
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.startEpochMillis = System.currentTimeMillis();
+    }
+
+    public BuildkiteSpan setAttribute(String key, Object value) {
+        if (value != null) {
+            attributes.put(key, String.valueOf(value));
+        }
+        return this;
+    }
+
+    public void end() {
+        if (endEpochMillis != 0) {
+            return;
+        }
+        endEpochMillis = System.currentTimeMillis();
+        tracer.export(this);
+    }
+
+    /**
+     * @return the W3C {@code traceparent} header value identifying this span as the parent of remote work
+     */
+    public String traceparent() {
+        return String.format("00-%s-%s-01", traceId, spanId);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public long getStartEpochMillis() {
+        return startEpochMillis;
+    }
+
+    public long getEndEpochMillis() {
+        return endEpochMillis;
+    }
+
+    public Map<String, String> getAttributes() {
+        return Collections.unmodifiableMap(attributes);
+    }
+
+    /**
+     * @return the trace and parent span IDs of a W3C {@code traceparent} value, or {@code null} if it isn't valid
+     */
+    static String[] parseTraceparent(String traceparent) {
+        if (traceparent == null) {
+            return null;
+        }
+
+        Matcher matcher = TRACEPARENT.matcher(traceparent.trim());
+        return matcher.matches() ? new String[]{matcher.group(1), matcher.group(2)} : null;
+    }
+}
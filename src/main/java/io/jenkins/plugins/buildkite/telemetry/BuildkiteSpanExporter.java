@@ -0,0 +1,11 @@
+package io.jenkins.plugins.buildkite.telemetry;
+
+import hudson.ExtensionPoint;
+
+/**
+ * Receives the spans recorded around {@code buildkite(…)} steps, e.g. to forward them to an OpenTelemetry collector.
+ * Tracing is only active while at least one exporter is registered.
+ */
+public interface BuildkiteSpanExporter extends ExtensionPoint {
+    void export(BuildkiteSpan span);
+}
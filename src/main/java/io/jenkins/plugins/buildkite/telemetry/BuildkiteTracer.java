@@ -0,0 +1,77 @@
+package io.jenkins.plugins.buildkite.telemetry;
+
+import hudson.ExtensionList;
+import jenkins.model.Jenkins;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class BuildkiteTracer {
+    private static final Logger LOGGER = Logger.getLogger(BuildkiteTracer.class.getName());
+    private static final BuildkiteTracer NOOP = new BuildkiteTracer(List.of());
+
+    private final List<? extends BuildkiteSpanExporter> exporters;
+
+    public BuildkiteTracer(List<? extends BuildkiteSpanExporter> exporters) {
+        this.exporters = exporters;
+    }
+
+    /**
+     * @return a tracer exporting to the registered {@link BuildkiteSpanExporter} extensions
+     */
+    public static BuildkiteTracer get() {
+        if (Jenkins.getInstanceOrNull() == null) {
+            return NOOP;
+        }
+
+        ExtensionList<BuildkiteSpanExporter> exporters = ExtensionList.lookup(BuildkiteSpanExporter.class);
+        return exporters.isEmpty() ? NOOP : new BuildkiteTracer(exporters);
+    }
+
+    public static BuildkiteTracer noop() {
+        return NOOP;
+    }
+
+    public boolean isEnabled() {
+        return !exporters.isEmpty();
+    }
+
+    /**
+     * Starts a root span, continuing the remote trace identified by {@code traceparent} when it is valid.
+     */
+    public BuildkiteSpan startSpan(String name, String traceparent) {
+        String[] remoteParent = BuildkiteSpan.parseTraceparent(traceparent);
+        if (remoteParent == null) {
+            return new BuildkiteSpan(this, name, randomHex(16), randomHex(8), null);
+        }
+        return new BuildkiteSpan(this, name, remoteParent[0], randomHex(8), remoteParent[1]);
+    }
+
+    public BuildkiteSpan startChildSpan(String name, BuildkiteSpan parent) {
+        if (parent == null) {
+            return startSpan(name, null);
+        }
+        return new BuildkiteSpan(this, name, parent.getTraceId(), randomHex(8), parent.getSpanId());
+    }
+
+    void export(BuildkiteSpan span) {
+        for (BuildkiteSpanExporter exporter : exporters) {
+            try {
+                exporter.export(span);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to export span " + span.getName(), e);
+            }
+        }
+    }
+
+    private static String randomHex(int bytes) {
+        var random = ThreadLocalRandom.current();
+        var hex = new StringBuilder(bytes * 2);
+        for (int i = 0; i < bytes; i++) {
+            hex.append(String.format("%02x", random.nextInt(256)));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,92 @@
+package io.jenkins.plugins.buildkite.telemetry;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-bucket latency histogram that can be recorded into from many threads without locking.
+ * Percentiles are approximated by the upper bound of the bucket they fall into.
+ */
+public class LatencyHistogram {
+    private static final long[] API_BUCKET_UPPER_BOUNDS_MILLIS = {
+            5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000, 60_000, Long.MAX_VALUE
+    };
+
+    private static final long[] BUILD_BUCKET_UPPER_BOUNDS_MILLIS = {
+            1_000, 5_000, 15_000, 30_000, 60_000, 2 * 60_000, 5 * 60_000, 10 * 60_000, 15 * 60_000,
+            30 * 60_000, 60 * 60_000, 2 * 60 * 60_000, 4 * 60 * 60_000, 8 * 60 * 60_000, Long.MAX_VALUE
+    };
+
+    private final long[] bucketUpperBoundsMillis;
+    private final AtomicLongArray buckets;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMillis = new LongAdder();
+
+    /**
+     * A histogram for API request latencies, with buckets from 5 ms to a minute.
+     */
+    public LatencyHistogram() {
+        this(API_BUCKET_UPPER_BOUNDS_MILLIS);
+    }
+
+    private LatencyHistogram(long[] bucketUpperBoundsMillis) {
+        this.bucketUpperBoundsMillis = bucketUpperBoundsMillis;
+        this.buckets = new AtomicLongArray(bucketUpperBoundsMillis.length);
+    }
+
+    /**
+     * A histogram for build timings such as queue and run time, with buckets from a second to eight hours.
+     */
+    public static LatencyHistogram forBuildTimings() {
+        return new LatencyHistogram(BUILD_BUCKET_UPPER_BOUNDS_MILLIS);
+    }
+
+    public void record(long millis) {
+        int bucket = 0;
+        while (millis > bucketUpperBoundsMillis[bucket]) {
+            bucket++;
+        }
+
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        sumMillis.add(millis);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMeanMillis() {
+        long samples = count.sum();
+        return samples == 0 ? 0 : (double) sumMillis.sum() / samples;
+    }
+
+    /**
+     * @param quantile between 0 and 1, e.g. {@code 0.95}
+     * @return the upper bound of the bucket containing the quantile, or {@code 0} when nothing was recorded.
+     * The open-ended last bucket is reported with the bound of the bucket before it.
+     */
+    public long getPercentileMillis(double quantile) {
+        long[] snapshot = new long[buckets.length()];
+        long total = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBoundsMillis[i], bucketUpperBoundsMillis[snapshot.length - 2]);
+            }
+        }
+
+        return bucketUpperBoundsMillis[snapshot.length - 2];
+    }
+}
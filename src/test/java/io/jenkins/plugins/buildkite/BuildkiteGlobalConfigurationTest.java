@@ -0,0 +1,36 @@
+package io.jenkins.plugins.buildkite;
+
+import hudson.util.FormValidation;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BuildkiteGlobalConfigurationTest {
+
+    @Test
+    void get_withoutJenkins_returnsDefaults() {
+        var configuration = BuildkiteGlobalConfiguration.get();
+
+        assertEquals("https://api.buildkite.com/v2", configuration.getApiBaseUrl());
+        assertEquals(60, configuration.getTimeoutInSeconds());
+        assertEquals(50, configuration.getMaxConnections());
+        assertEquals(2, configuration.getInitialPollDelaySeconds());
+        assertEquals(7, configuration.getPollIntervalSeconds());
+    }
+
+    @Test
+    void doCheckApiBaseUrl_acceptsHttpsUrl() {
+        var configuration = BuildkiteGlobalConfiguration.get();
+
+        assertEquals(FormValidation.Kind.OK, configuration.doCheckApiBaseUrl("https://buildkite.example.com/v2").kind);
+        assertEquals(FormValidation.Kind.OK, configuration.doCheckApiBaseUrl("").kind);
+    }
+
+    @Test
+    void doCheckApiBaseUrl_rejectsOtherSchemes() {
+        var configuration = BuildkiteGlobalConfiguration.get();
+
+        assertEquals(FormValidation.Kind.ERROR, configuration.doCheckApiBaseUrl("ftp://buildkite.example.com").kind);
+        assertEquals(FormValidation.Kind.ERROR, configuration.doCheckApiBaseUrl("not a url").kind);
+    }
+}
@@ -1,14 +1,20 @@
 package io.jenkins.plugins.buildkite.api_client;
 
 import hudson.util.Secret;
+import io.jenkins.plugins.buildkite.telemetry.ApiEndpoint;
+import io.jenkins.plugins.buildkite.telemetry.BuildkiteApiCallEvent;
+import io.jenkins.plugins.buildkite.telemetry.BuildkiteMetrics;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.classic.methods.HttpPut;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 import org.apache.hc.core5.http.ClassicHttpRequest;
 import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.message.BasicHeader;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.MockitoAnnotations;
@@ -16,6 +22,16 @@ import org.mockito.MockitoAnnotations;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -34,6 +50,7 @@ class BuildkiteApiClientTest {
     void setUp() {
         MockitoAnnotations.openMocks(this);
         mockSecret = Secret.fromString("test-api-token");
+        BuildkiteBuildCache.get().clear();
     }
 
     @Test
@@ -43,7 +60,8 @@ class BuildkiteApiClientTest {
             client = new BuildkiteApiClient(mockSecret);
 
             assertNotNull(client);
-            mockedHttpClient.verify(HttpClient::getCloseableHttpClient);
+            // The shared client is looked up per request, so a client doesn't outlive a settings change
+            mockedHttpClient.verify(HttpClient::getCloseableHttpClient, never());
         }
     }
 
@@ -226,6 +244,406 @@ class BuildkiteApiClientTest {
         }
     }
 
+    @Test
+    void getBuild_parsesJobs() throws Exception {
+        try (MockedStatic<HttpClient> mockedHttpClient = mockStatic(HttpClient.class)) {
+            String responseJson = """
+                    {
+                      "id": "46e39f6d-0647-4ecb-9d4d-09f5cf780502",
+                      "number": 99,
+                      "state": "failed",
+                      "web_url": "https://buildkite.com/my-org/my-pipeline/builds/99",
+                      "commit": "def456abc",
+                      "branch": "main",
+                      "url": "https://api.buildkite.com/my-org/my-pipeline/builds/99",
+                      "jobs": [
+                        {"id": "j1", "name": "specs", "type": "script", "state": "failed", "retried": false},
+                        {"id": "j2", "name": "lint", "type": "script", "state": "failed", "soft_failed": true},
+                        {"id": "j3", "type": "waiter"}
+                      ]
+                    }
+                    """;
+
+            client = mockClientReturningHttpResponse(mockedHttpClient, 200, responseJson);
+
+            BuildkiteBuild result = client.getBuild("my-org", "my-pipeline", 99);
+
+            assertEquals(3, result.getJobs().size());
+            assertEquals(1, result.retriableJobs().size());
+            assertEquals("j1", result.retriableJobs().get(0).getId());
+        }
+    }
+
+    @Test
+    void retryJob_success_returnsJob() throws Exception {
+        try (MockedStatic<HttpClient> mockedHttpClient = mockStatic(HttpClient.class)) {
+            String responseJson = """
+                    {"id": "j4", "name": "specs", "type": "script", "state": "scheduled"}
+                    """;
+
+            client = mockClientReturningHttpResponse(mockedHttpClient, 200, responseJson);
+
+            BuildkiteJob result = client.retryJob("my-org", "my-pipeline", 99, "j1");
+
+            assertEquals("j4", result.getId());
+            assertEquals("scheduled", result.getState());
+            verify(mockHttpClient).execute(any(HttpPut.class));
+        }
+    }
+
+    @Test
+    void getBuild_recordsResponseAndRateLimitMetrics() throws Exception {
+        try (MockedStatic<HttpClient> mockedHttpClient = mockStatic(HttpClient.class)) {
+            String responseJson = """
+                    {
+                      "id": "46e39f6d-0647-4ecb-9d4d-09f5cf780502",
+                      "number": 99,
+                      "state": "passed",
+                      "web_url": "https://buildkite.com/my-org/my-pipeline/builds/99",
+                      "commit": "def456abc",
+                      "branch": "main",
+                      "url": "https://api.buildkite.com/my-org/my-pipeline/builds/99",
+                      "created_at": "2025-01-01T10:00:00.000Z",
+                      "started_at": "2025-01-01T10:00:30.000Z",
+                      "finished_at": "2025-01-01T10:05:30.000Z"
+                    }
+                    """;
+
+            client = mockClientReturningHttpResponse(mockedHttpClient, 200, responseJson);
+            when(mockResponse.getFirstHeader("RateLimit-Limit")).thenReturn(new BasicHeader("RateLimit-Limit", "200"));
+            when(mockResponse.getFirstHeader("RateLimit-Remaining")).thenReturn(new BasicHeader("RateLimit-Remaining", "187"));
+
+            var metrics = BuildkiteMetrics.get();
+            long requestsBefore = metrics.getApiLatency(ApiEndpoint.GET_BUILD).getCount();
+
+            BuildkiteBuild result = client.getBuild("my-org", "my-pipeline", 99);
+
+            assertEquals(Instant.parse("2025-01-01T10:00:30Z"), result.getStartedAt());
+            assertEquals(requestsBefore + 1, metrics.getApiLatency(ApiEndpoint.GET_BUILD).getCount());
+            assertEquals(200, metrics.getRateLimitLimit());
+            assertEquals(187, metrics.getRateLimitRemaining());
+        }
+    }
+
+    @Test
+    void getBuild_emitsApiCallFlightRecorderEvent() throws Exception {
+        try (MockedStatic<HttpClient> mockedHttpClient = mockStatic(HttpClient.class);
+             var recording = new Recording()) {
+            String responseJson = """
+                    {
+                      "id": "46e39f6d-0647-4ecb-9d4d-09f5cf780502",
+                      "number": 99,
+                      "state": "running",
+                      "web_url": "https://buildkite.com/my-org/my-pipeline/builds/99",
+                      "commit": "def456abc",
+                      "branch": "main",
+                      "url": "https://api.buildkite.com/my-org/my-pipeline/builds/99"
+                    }
+                    """;
+
+            client = mockClientReturningHttpResponse(mockedHttpClient, 200, responseJson);
+
+            recording.enable(BuildkiteApiCallEvent.class).withoutThreshold();
+            recording.start();
+            client.getBuild("my-org", "my-pipeline", 99);
+            recording.stop();
+
+            Path dump = Files.createTempFile("buildkite", ".jfr");
+            try {
+                recording.dump(dump);
+                List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+
+                assertEquals(1, events.size());
+                assertEquals("get_build", events.get(0).getString("endpoint"));
+                assertEquals("my-org", events.get(0).getString("organization"));
+                assertEquals("my-pipeline", events.get(0).getString("pipeline"));
+                assertEquals(200, events.get(0).getInt("statusCode"));
+            } finally {
+                Files.deleteIfExists(dump);
+            }
+        }
+    }
+
+    @Test
+    void listArtifacts_followsPaginationLinks() throws Exception {
+        try (MockedStatic<HttpClient> mockedHttpClient = mockStatic(HttpClient.class)) {
+            mockedHttpClient.when(HttpClient::getCloseableHttpClient).thenReturn(mockHttpClient);
+
+            String firstPage = """
+                    [{
+                      "id": "a1",
+                      "job_id": "j1",
+                      "path": "dist/app.jar",
+                      "state": "finished",
+                      "file_size": 1024,
+                      "sha1sum": "abc",
+                      "download_url": "https://api.buildkite.com/v2/artifacts/a1/download"
+                    }]
+                    """;
+            String secondPage = """
+                    [{
+                      "id": "a2",
+                      "job_id": "j2",
+                      "path": "logs/test.log",
+                      "state": "finished",
+                      "file_size": 2048,
+                      "download_url": "https://api.buildkite.com/v2/artifacts/a2/download"
+                    }]
+                    """;
+
+            when(mockResponse.getCode()).thenReturn(200);
+            when(mockResponse.getEntity()).thenReturn(mockEntity);
+            when(mockEntity.getContent())
+                    .thenReturn(new ByteArrayInputStream(firstPage.getBytes(StandardCharsets.UTF_8)))
+                    .thenReturn(new ByteArrayInputStream(secondPage.getBytes(StandardCharsets.UTF_8)));
+            when(mockResponse.getFirstHeader("Link"))
+                    .thenReturn(new BasicHeader("Link", "<https://api.buildkite.com/v2/next?page=2>; rel=\"next\""))
+                    .thenReturn(null);
+            when(mockHttpClient.execute(any(ClassicHttpRequest.class))).thenReturn(mockResponse);
+
+            client = new BuildkiteApiClient(mockSecret);
+
+            List<BuildkiteArtifact> result = client.listArtifacts("my-org", "my-pipeline", 42);
+
+            assertEquals(2, result.size());
+            assertEquals("dist/app.jar", result.get(0).getPath());
+            assertEquals(1024, result.get(0).getFileSize());
+            assertEquals("abc", result.get(0).getSha1sum());
+            assertEquals("logs/test.log", result.get(1).getPath());
+            assertNull(result.get(1).getSha1sum());
+            verify(mockHttpClient, times(2)).execute(any(HttpGet.class));
+        }
+    }
+
+    @Test
+    void getArtifactDownloadUrl_returnsRedirectLocation() throws Exception {
+        try (MockedStatic<HttpClient> mockedHttpClient = mockStatic(HttpClient.class)) {
+            client = mockClientReturningHttpResponse(mockedHttpClient, 302, "");
+            when(mockResponse.getFirstHeader("Location"))
+                    .thenReturn(new BasicHeader("Location", "https://storage.example.com/app.jar?signature=xyz"));
+
+            var artifact = BuildkiteArtifact.builder()
+                    .downloadUrl("https://api.buildkite.com/v2/artifacts/a1/download")
+                    .build();
+
+            assertEquals("https://storage.example.com/app.jar?signature=xyz", client.getArtifactDownloadUrl(artifact));
+        }
+    }
+
+    @Test
+    void createBuild_ambiguousFailure_findsBuildByIdempotencyKey() throws Exception {
+        try (MockedStatic<HttpClient> mockedHttpClient = mockStatic(HttpClient.class)) {
+            mockClientReturningHttpResponse(mockedHttpClient, 200, "[{\"number\": 12, \"state\": \"scheduled\"}]");
+            when(mockHttpClient.execute(any(ClassicHttpRequest.class)))
+                    .thenThrow(new IOException("Read timed out"))
+                    .thenReturn(mockResponse);
+
+            BuildkiteBuild build = noSleepClient().createBuild("my-org", "my-pipeline", idempotentRequest("run/1"));
+
+            assertEquals(12, build.getNumber());
+            var requests = ArgumentCaptor.forClass(ClassicHttpRequest.class);
+            verify(mockHttpClient, times(2)).execute(requests.capture());
+            assertInstanceOf(HttpPost.class, requests.getAllValues().get(0));
+            assertEquals(
+                    "https://api.buildkite.com/v2/organizations/my-org/pipelines/my-pipeline/builds?per_page=100&meta_data%5Bjenkins_idempotency_key%5D=run%2F1",
+                    requests.getAllValues().get(1).getUri().toString()
+            );
+        }
+    }
+
+    @Test
+    void createBuild_ambiguousFailure_createsAgainWhenNotFound() throws Exception {
+        try (MockedStatic<HttpClient> mockedHttpClient = mockStatic(HttpClient.class)) {
+            mockClientReturningHttpResponse(mockedHttpClient, 200, "");
+            when(mockEntity.getContent())
+                    .thenReturn(new ByteArrayInputStream("[]".getBytes(StandardCharsets.UTF_8)))
+                    .thenReturn(new ByteArrayInputStream("{\"number\": 13, \"state\": \"scheduled\"}".getBytes(StandardCharsets.UTF_8)));
+            when(mockHttpClient.execute(any(ClassicHttpRequest.class)))
+                    .thenThrow(new IOException("Connection reset"))
+                    .thenReturn(mockResponse);
+
+            BuildkiteBuild build = noSleepClient().createBuild("my-org", "my-pipeline", idempotentRequest("run/2"));
+
+            assertEquals(13, build.getNumber());
+            verify(mockHttpClient, times(2)).execute(any(HttpPost.class));
+            verify(mockHttpClient, times(1)).execute(any(HttpGet.class));
+        }
+    }
+
+    @Test
+    void createBuild_clientError_isNotRetried() throws Exception {
+        try (MockedStatic<HttpClient> mockedHttpClient = mockStatic(HttpClient.class)) {
+            mockClientReturningHttpResponse(mockedHttpClient, 422, "Branch is invalid");
+
+            assertThrows(BuildkiteApiException.class, () ->
+                    noSleepClient().createBuild("my-org", "my-pipeline", idempotentRequest("run/3")));
+
+            verify(mockHttpClient, times(1)).execute(any(ClassicHttpRequest.class));
+        }
+    }
+
+    @Test
+    void getBuild_finishedBuildIsReadFromCache() throws Exception {
+        try (MockedStatic<HttpClient> mockedHttpClient = mockStatic(HttpClient.class)) {
+            mockClientReturningHttpResponse(mockedHttpClient, 200, "");
+            when(mockEntity.getContent()).thenAnswer(invocation ->
+                    new ByteArrayInputStream("{\"number\": 8, \"state\": \"failed\"}".getBytes(StandardCharsets.UTF_8)));
+
+            // Separate clients, like separate steps, share the cache
+            new BuildkiteApiClient(mockSecret).getBuild("my-org", "my-pipeline", 8);
+            new BuildkiteApiClient(mockSecret).getBuild("my-org", "my-pipeline", 8);
+            verify(mockHttpClient, times(1)).execute(any(ClassicHttpRequest.class));
+
+            // A retried build runs again, so it's requested again
+            new BuildkiteApiClient(mockSecret).retryJob("my-org", "my-pipeline", 8, "job-1");
+            new BuildkiteApiClient(mockSecret).getBuild("my-org", "my-pipeline", 8);
+            verify(mockHttpClient, times(3)).execute(any(ClassicHttpRequest.class));
+
+            new BuildkiteApiClient(mockSecret).refreshBuild("my-org", "my-pipeline", 8);
+            verify(mockHttpClient, times(4)).execute(any(ClassicHttpRequest.class));
+        }
+    }
+
+    @Test
+    void getBuild_cachedBuildIsNotSharedWithOtherCredentials() throws Exception {
+        try (MockedStatic<HttpClient> mockedHttpClient = mockStatic(HttpClient.class)) {
+            mockClientReturningHttpResponse(mockedHttpClient, 200, "");
+            when(mockEntity.getContent()).thenAnswer(invocation ->
+                    new ByteArrayInputStream("{\"number\": 8, \"state\": \"passed\"}".getBytes(StandardCharsets.UTF_8)));
+
+            new BuildkiteApiClient(mockSecret).getBuild("my-org", "my-pipeline", 8);
+            // A token that may not read the pipeline has to ask Buildkite itself
+            new BuildkiteApiClient(Secret.fromString("other-api-token")).getBuild("my-org", "my-pipeline", 8);
+
+            verify(mockHttpClient, times(2)).execute(any(ClassicHttpRequest.class));
+        }
+    }
+
+    @Test
+    void refreshBuild_usesReplacementSharedClientAfterSettingsChange() throws Exception {
+        try (MockedStatic<HttpClient> mockedHttpClient = mockStatic(HttpClient.class)) {
+            client = mockClientReturningHttpResponse(mockedHttpClient, 200, "");
+            when(mockEntity.getContent()).thenAnswer(invocation ->
+                    new ByteArrayInputStream("{\"number\": 9, \"state\": \"running\"}".getBytes(StandardCharsets.UTF_8)));
+
+            client.refreshBuild("my-org", "my-pipeline", 9);
+
+            // The settings changed while the step was waiting: the old client gets closed and a new one replaces it
+            var replacementHttpClient = mock(CloseableHttpClient.class);
+            when(replacementHttpClient.execute(any(ClassicHttpRequest.class))).thenReturn(mockResponse);
+            when(mockHttpClient.execute(any(ClassicHttpRequest.class)))
+                    .thenThrow(new IllegalStateException("Connection pool shut down"));
+            mockedHttpClient.when(HttpClient::getCloseableHttpClient).thenReturn(replacementHttpClient);
+
+            BuildkiteBuild build = client.refreshBuild("my-org", "my-pipeline", 9);
+
+            assertEquals(9, build.getNumber());
+            verify(replacementHttpClient).execute(any(ClassicHttpRequest.class));
+        }
+    }
+
+    @Test
+    void streamBuilds_requestsOnlyPagesThatAreRead() throws Exception {
+        try (MockedStatic<HttpClient> mockedHttpClient = mockStatic(HttpClient.class)) {
+            mockClientReturningHttpResponse(mockedHttpClient, 200, "");
+            when(mockEntity.getContent()).thenAnswer(invocation -> new ByteArrayInputStream(
+                    "[{\"number\": 2, \"state\": \"passed\"}, {\"number\": 1, \"state\": \"failed\"}]".getBytes(StandardCharsets.UTF_8)));
+            when(mockResponse.getFirstHeader("Link"))
+                    .thenReturn(new BasicHeader("Link", "<https://api.buildkite.com/v2/next?page=2>; rel=\"next\""));
+
+            client = new BuildkiteApiClient(mockSecret, "https://api.buildkite.com/v2");
+
+            BuildkiteBuild passed;
+            try (var builds = client.streamBuilds("my-org", "my-pipeline", Map.of("branch", "release/1.0"))) {
+                passed = builds.filter(BuildkiteBuild::buildPassed).findFirst().orElseThrow();
+            }
+
+            assertEquals(2, passed.getNumber());
+            var requests = ArgumentCaptor.forClass(ClassicHttpRequest.class);
+            verify(mockHttpClient, times(1)).execute(requests.capture());
+            assertEquals(
+                    "https://api.buildkite.com/v2/organizations/my-org/pipelines/my-pipeline/builds?per_page=100&branch=release%2F1.0",
+                    requests.getValue().getUri().toString()
+            );
+        }
+    }
+
+    @Test
+    void tokenPool_mutatingRequestsUsePrimaryToken() throws Exception {
+        try (MockedStatic<HttpClient> mockedHttpClient = mockStatic(HttpClient.class)) {
+            mockClientReturningHttpResponse(mockedHttpClient, 200, "{}");
+            when(mockEntity.getContent()).thenAnswer(invocation ->
+                    new ByteArrayInputStream("{\"number\": 7}".getBytes(StandardCharsets.UTF_8)));
+
+            var tokens = new LinkedHashMap<String, Secret>();
+            tokens.put(UUID.randomUUID().toString(), Secret.fromString("primary-token"));
+            tokens.put(UUID.randomUUID().toString(), Secret.fromString("secondary-token"));
+            var pool = BuildkiteTokenPool.of(tokens);
+            // The primary token has almost no budget left, so reads go to the other one
+            pool.primary().getBudget().record(1, 60);
+
+            var pooledClient = new BuildkiteApiClient(pool);
+            pooledClient.createBuild("my-org", "my-pipeline", CreateBuildRequest.builder().branch("main").build());
+            pooledClient.getBuild("my-org", "my-pipeline", 7);
+
+            var requests = ArgumentCaptor.forClass(ClassicHttpRequest.class);
+            verify(mockHttpClient, times(2)).execute(requests.capture());
+            assertEquals("Bearer primary-token", requests.getAllValues().get(0).getFirstHeader("Authorization").getValue());
+            assertEquals("Bearer secondary-token", requests.getAllValues().get(1).getFirstHeader("Authorization").getValue());
+        }
+    }
+
+    @Test
+    void pipelineEndpoint_encodesOrganizationAndPipeline() {
+        var endpoint = new BuildkiteApiClient.PipelineEndpoint("https://api.buildkite.com/v2", "my org", "web/app");
+
+        assertEquals("https://api.buildkite.com/v2/organizations/my%20org/pipelines/web%2Fapp/builds", endpoint.builds());
+        assertEquals("https://api.buildkite.com/v2/organizations/my%20org/pipelines/web%2Fapp/builds/7/cancel", endpoint.build(7, "/cancel"));
+    }
+
+    @Test
+    void pipelineEndpoint_reusedForSamePipeline() {
+        try (MockedStatic<HttpClient> mockedHttpClient = mockStatic(HttpClient.class)) {
+            mockedHttpClient.when(HttpClient::getCloseableHttpClient).thenReturn(mockHttpClient);
+            client = new BuildkiteApiClient(mockSecret, "https://api.buildkite.com/v2");
+
+            var endpoint = client.pipelineEndpoint("my-org", "my-pipeline");
+
+            assertSame(endpoint, client.pipelineEndpoint("my-org", "my-pipeline"));
+            assertNotSame(endpoint, client.pipelineEndpoint("my-org", "other-pipeline"));
+        }
+    }
+
+    @Test
+    void getBuildRequest_sharesHeadersBetweenRequests() throws Exception {
+        try (MockedStatic<HttpClient> mockedHttpClient = mockStatic(HttpClient.class)) {
+            mockedHttpClient.when(HttpClient::getCloseableHttpClient).thenReturn(mockHttpClient);
+            client = new BuildkiteApiClient(mockSecret, "https://api.buildkite.com/v2");
+
+            HttpGet first = client.getBuildRequest("my-org", "my-pipeline", 1);
+            HttpGet second = client.getBuildRequest("my-org", "my-pipeline", 2);
+
+            assertEquals("https://api.buildkite.com/v2/organizations/my-org/pipelines/my-pipeline/builds/2", second.getUri().toString());
+            assertEquals("application/json", first.getFirstHeader("Content-Type").getValue());
+            assertSame(first.getFirstHeader("Content-Type"), second.getFirstHeader("Content-Type"));
+        }
+    }
+
+    private BuildkiteApiClient noSleepClient() {
+        return new BuildkiteApiClient(mockSecret, "https://api.buildkite.com/v2") {
+            @Override
+            protected void sleepMillis(long millis) {
+            }
+        };
+    }
+
+    private static CreateBuildRequest idempotentRequest(String idempotencyKey) {
+        return CreateBuildRequest.builder()
+                .branch("main")
+                .metaData(Map.of(CreateBuildRequest.IDEMPOTENCY_KEY, idempotencyKey))
+                .build();
+    }
+
     private BuildkiteApiClient mockClientReturningHttpResponse(MockedStatic<HttpClient> mockedHttpClient, int statusCode, String responseBody) throws IOException {
         mockedHttpClient.when(HttpClient::getCloseableHttpClient).thenReturn(mockHttpClient);
 
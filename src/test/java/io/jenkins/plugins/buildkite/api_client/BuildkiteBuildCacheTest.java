@@ -0,0 +1,182 @@
+package io.jenkins.plugins.buildkite.api_client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BuildkiteBuildCacheTest {
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final AtomicInteger loads = new AtomicInteger();
+    private BuildkiteBuildCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new BuildkiteBuildCache(now::get);
+    }
+
+    @Test
+    void get_runningBuildExpiresAfterTtl() {
+        cache.get("org/pipeline#1", () -> load("running"));
+        cache.get("org/pipeline#1", () -> load("running"));
+        assertEquals(1, loads.get());
+
+        now.addAndGet(BuildkiteBuildCache.RUNNING_TTL.toMillis());
+
+        assertEquals("passed", cache.get("org/pipeline#1", () -> load("passed")).getState());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_finishedBuildIsKept() {
+        cache.get("org/pipeline#1", () -> load("failed"));
+        now.addAndGet(BuildkiteBuildCache.RUNNING_TTL.toMillis() * 10);
+
+        assertEquals("failed", cache.get("org/pipeline#1", () -> load("passed")).getState());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidate_forcesReload() {
+        cache.get("org/pipeline#1", () -> load("failed"));
+        cache.invalidate("org/pipeline#1");
+
+        assertEquals("passed", cache.get("org/pipeline#1", () -> load("passed")).getState());
+    }
+
+    @Test
+    void invalidate_duringLoad_dropsItsResponse() throws Exception {
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<BuildkiteBuild> stale = executor.submit(() -> cache.get("org/pipeline#1", () -> {
+                loading.countDown();
+                await(release);
+                return load("failed");
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            cache.invalidate("org/pipeline#1");
+            release.countDown();
+
+            assertEquals("failed", stale.get(5, TimeUnit.SECONDS).getState());
+            assertEquals("running", cache.get("org/pipeline#1", () -> load("running")).getState());
+            assertEquals(2, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void get_evictsLeastRecentlyUsed() {
+        for (int i = 0; i <= BuildkiteBuildCache.MAX_ENTRIES; i++) {
+            cache.get("org/pipeline#" + i, () -> load("passed"));
+        }
+        loads.set(0);
+
+        cache.get("org/pipeline#0", () -> load("passed"));
+        cache.get("org/pipeline#" + BuildkiteBuildCache.MAX_ENTRIES, () -> load("passed"));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_failedLoadIsNotCached() {
+        assertThrows(BuildkiteApiException.class, () -> cache.get("org/pipeline#1", () -> {
+            throw new BuildkiteApiException(502, "Bad Gateway");
+        }));
+
+        assertEquals("passed", cache.get("org/pipeline#1", () -> load("passed")).getState());
+    }
+
+    @Test
+    void get_concurrentMissesShareOneLoad() throws Exception {
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            Future<BuildkiteBuild> first = executor.submit(() -> cache.get("org/pipeline#1", () -> {
+                loading.countDown();
+                await(release);
+                return load("running");
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            var waiters = new ArrayList<Future<BuildkiteBuild>>();
+            for (int i = 0; i < 3; i++) {
+                waiters.add(executor.submit(() -> cache.get("org/pipeline#1", () -> load("passed"))));
+            }
+            release.countDown();
+
+            BuildkiteBuild build = first.get(5, TimeUnit.SECONDS);
+            for (Future<BuildkiteBuild> waiter : waiters) {
+                assertSame(build, waiter.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void get_interruptedWhileWaitingForSharedLoad_throwsInterruption() throws Exception {
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            executor.submit(() -> cache.get("org/pipeline#1", () -> {
+                loading.countDown();
+                await(release);
+                return load("running");
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            var interruptFlagKept = new AtomicBoolean();
+            Future<?> waiter = executor.submit(() -> {
+                Thread.currentThread().interrupt();
+                try {
+                    cache.get("org/pipeline#1", () -> load("passed"));
+                    return null;
+                } finally {
+                    interruptFlagKept.set(Thread.interrupted());
+                }
+            });
+
+            var exception = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(BuildkiteInterruptedException.class, exception.getCause());
+            assertInstanceOf(InterruptedException.class, exception.getCause().getCause());
+            assertTrue(interruptFlagKept.get());
+            release.countDown();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private BuildkiteBuild load(String state) {
+        loads.incrementAndGet();
+        return BuildkiteBuild.builder().state(state).build();
+    }
+}
@@ -0,0 +1,38 @@
+package io.jenkins.plugins.buildkite.api_client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BuildkiteBuildStateTest {
+
+    @Test
+    void of_mapsApiNames() {
+        assertEquals(BuildkiteBuildState.PASSED, BuildkiteBuildState.of("passed"));
+        assertEquals(BuildkiteBuildState.NOT_RUN, BuildkiteBuildState.of("not_run"));
+        assertEquals("not_run", BuildkiteBuildState.NOT_RUN.toString());
+    }
+
+    @Test
+    void of_unknownStatesAreInProgress() {
+        assertEquals(BuildkiteBuildState.UNKNOWN, BuildkiteBuildState.of("something_new"));
+        assertEquals(BuildkiteBuildState.UNKNOWN, BuildkiteBuildState.of(null));
+        assertFalse(BuildkiteBuildState.UNKNOWN.isFinished());
+    }
+
+    @Test
+    void terminalStates() {
+        assertTrue(BuildkiteBuild.builder().state("skipped").build().buildFinished());
+        assertTrue(BuildkiteBuild.builder().state("not_run").build().buildFinished());
+        assertTrue(BuildkiteBuild.builder().state("blocked").build().buildFinished());
+        assertFalse(BuildkiteBuild.builder().state("canceling").build().buildFinished());
+        assertFalse(BuildkiteBuild.builder().state("failing").build().buildFinished());
+    }
+
+    @Test
+    void onlyPassedPasses() {
+        for (BuildkiteBuildState state : BuildkiteBuildState.values()) {
+            assertEquals(state == BuildkiteBuildState.PASSED, state.isPassed());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package io.jenkins.plugins.buildkite.api_client;
+
+import hudson.util.Secret;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BuildkiteTokenPoolTest {
+
+    @Test
+    void primary_isFirstToken() {
+        var ids = uniqueIds(3);
+        var pool = BuildkiteTokenPool.of(tokens(ids));
+
+        assertEquals(3, pool.size());
+        assertEquals("token-0", pool.getPrimaryToken().getPlainText());
+    }
+
+    @Test
+    void leastLoaded_picksTokenWithMostRemainingBudget() {
+        var pool = BuildkiteTokenPool.of(tokens(uniqueIds(3)));
+        pool.leastLoaded().getBudget().record(10, 60);
+        recordAllOthers(pool, 10);
+
+        BuildkiteTokenPool.Token busy = pool.leastLoaded();
+        busy.getBudget().record(5, 60);
+
+        assertNotSame(busy, pool.leastLoaded());
+        assertEquals(10, pool.leastLoaded().getBudget().available());
+    }
+
+    @Test
+    void leastLoaded_prefersTokensWithUnknownBudget() {
+        var ids = uniqueIds(2);
+        var pool = BuildkiteTokenPool.of(tokens(ids));
+        pool.primary().getBudget().record(200, 60);
+
+        assertEquals("token-1", pool.leastLoaded().getSecret().getPlainText());
+    }
+
+    @Test
+    void authorizationHeader_isBuiltOnce() {
+        var pool = BuildkiteTokenPool.of(Secret.fromString("test-token"));
+
+        var header = pool.primary().getAuthorizationHeader();
+
+        assertEquals("Bearer test-token", header.getValue());
+        assertSame(header, pool.primary().getAuthorizationHeader());
+    }
+
+    @Test
+    void budget_acquireDecrementsRemaining() {
+        var budget = new BuildkiteTokenPool.RateLimitBudget();
+        budget.record(2, 60);
+
+        budget.acquire();
+        assertEquals(1, budget.available());
+
+        budget.acquire();
+        budget.acquire();
+        assertEquals(0, budget.available());
+    }
+
+    @Test
+    void budget_unknownAfterReset() {
+        var budget = new BuildkiteTokenPool.RateLimitBudget();
+        assertEquals(Long.MAX_VALUE, budget.available());
+
+        budget.record(0, 0);
+        assertEquals(Long.MAX_VALUE, budget.available());
+    }
+
+    @Test
+    void budgets_sharedBetweenPoolsOfSameCredentials() {
+        var ids = uniqueIds(2);
+        var first = BuildkiteTokenPool.of(tokens(ids));
+        var second = BuildkiteTokenPool.of(tokens(ids));
+
+        first.primary().getBudget().record(42, 60);
+
+        assertEquals(42, second.primary().getBudget().available());
+    }
+
+    @Test
+    void singleToken_hasOwnBudget() {
+        var first = BuildkiteTokenPool.of(Secret.fromString("token"));
+        var second = BuildkiteTokenPool.of(Secret.fromString("token"));
+
+        first.primary().getBudget().record(42, 60);
+
+        assertEquals(Long.MAX_VALUE, second.primary().getBudget().available());
+    }
+
+    private static void recordAllOthers(BuildkiteTokenPool pool, long remaining) {
+        // Every token with an unknown budget wins the selection, so record them one by one
+        for (int i = 1; i < pool.size(); i++) {
+            pool.leastLoaded().getBudget().record(remaining, 60);
+        }
+    }
+
+    private static String[] uniqueIds(int count) {
+        var ids = new String[count];
+        String prefix = UUID.randomUUID().toString();
+        for (int i = 0; i < count; i++) {
+            ids[i] = prefix + "-" + i;
+        }
+        return ids;
+    }
+
+    private static Map<String, Secret> tokens(String[] ids) {
+        var tokens = new LinkedHashMap<String, Secret>();
+        for (int i = 0; i < ids.length; i++) {
+            tokens.put(ids[i], Secret.fromString("token-" + i));
+        }
+        return tokens;
+    }
+}
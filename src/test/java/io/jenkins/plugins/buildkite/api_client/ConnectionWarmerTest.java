@@ -0,0 +1,68 @@
+package io.jenkins.plugins.buildkite.api_client;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionWarmerTest {
+    private HttpServer server;
+    private String url;
+    private final AtomicInteger requests = new AtomicInteger();
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v2", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(401, -1);
+            exchange.close();
+        });
+        server.start();
+        url = String.format("http://127.0.0.1:%d/v2", server.getAddress().getPort());
+
+        connectionManager = PoolingHttpClientConnectionManagerBuilder.create().build();
+        client = HttpClients.custom().setConnectionManager(connectionManager).build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    void warmUp_leavesConnectionsInPool() {
+        int warmed = ConnectionWarmer.warmUp(client, url, 3);
+
+        assertEquals(3, warmed);
+        assertEquals(3, requests.get());
+        assertTrue(connectionManager.getTotalStats().getAvailable() >= 1);
+        assertEquals(0, connectionManager.getTotalStats().getLeased());
+    }
+
+    @Test
+    void warmUp_disabled_makesNoRequests() {
+        assertEquals(0, ConnectionWarmer.warmUp(client, url, 0));
+        assertEquals(0, requests.get());
+    }
+
+    @Test
+    void warmUp_unreachableHost_countsNoConnections() {
+        // Nothing listens on port 1, so connecting is refused
+        assertEquals(0, ConnectionWarmer.warmUp(client, "http://127.0.0.1:1/v2", 2));
+    }
+}
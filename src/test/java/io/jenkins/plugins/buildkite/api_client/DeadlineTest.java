@@ -0,0 +1,39 @@
+package io.jenkins.plugins.buildkite.api_client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadlineTest {
+
+    @Test
+    void none_neverExpires() {
+        var deadline = Deadline.none();
+
+        assertFalse(deadline.isSet());
+        assertFalse(deadline.isExpired());
+        assertEquals(Long.MAX_VALUE, deadline.remainingMillis());
+        assertEquals(7000, deadline.clampMillis(7000));
+    }
+
+    @Test
+    void after_clampsTimeoutsToRemainingTime() {
+        var deadline = Deadline.after(Duration.ofSeconds(5));
+
+        assertTrue(deadline.isSet());
+        assertFalse(deadline.isExpired());
+        assertTrue(deadline.clampMillis(60_000) <= 5000);
+        assertEquals(100, deadline.clampMillis(100));
+    }
+
+    @Test
+    void after_zeroDuration_isExpired() {
+        var deadline = Deadline.after(Duration.ZERO);
+
+        assertTrue(deadline.isExpired());
+        assertEquals(0, deadline.remainingMillis());
+        assertEquals(0, deadline.clampMillis(7000));
+    }
+}
@@ -0,0 +1,94 @@
+package io.jenkins.plugins.buildkite.api_client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagedIteratorTest {
+    private static final Map<String, PagedIterator.Page<Integer>> PAGES = Map.of(
+            "page1", new PagedIterator.Page<>(List.of(1, 2), "page2"),
+            "page2", new PagedIterator.Page<>(List.of(), "page3"),
+            "page3", new PagedIterator.Page<>(List.of(3), null)
+    );
+
+    private final List<String> fetched = new ArrayList<>();
+
+    @Test
+    void iteratesAllPages() {
+        var iterator = new PagedIterator<>("page1", this::fetch, null);
+
+        var items = new ArrayList<Integer>();
+        iterator.forEachRemaining(items::add);
+
+        assertEquals(List.of(1, 2, 3), items);
+        assertEquals(List.of("page1", "page2", "page3"), fetched);
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    @Test
+    void fetchesNothingUntilConsumed() {
+        var iterator = new PagedIterator<>("page1", this::fetch, null);
+        assertTrue(fetched.isEmpty());
+
+        assertEquals(1, iterator.next());
+        assertEquals(List.of("page1"), fetched);
+    }
+
+    @Test
+    void stream_stopsFetchingWhenCallerStops() {
+        try (var stream = PagedIterator.stream("page1", this::fetch, null)) {
+            assertEquals(List.of(1, 2), stream.limit(2).toList());
+        }
+
+        assertEquals(List.of("page1"), fetched);
+    }
+
+    @Test
+    void prefetch_requestsNextPageWhenPageIsLoaded() {
+        var pendingPrefetches = new ArrayList<Runnable>();
+        Executor executor = pendingPrefetches::add;
+        var iterator = new PagedIterator<>("page1", this::fetch, executor);
+
+        assertEquals(1, iterator.next());
+        assertEquals(1, pendingPrefetches.size());
+
+        pendingPrefetches.remove(0).run();
+        assertEquals(List.of("page1", "page2"), fetched);
+    }
+
+    @Test
+    void prefetch_directExecutorIteratesAllPages() {
+        var iterator = new PagedIterator<>("page1", this::fetch, Runnable::run);
+
+        var items = new ArrayList<Integer>();
+        iterator.forEachRemaining(items::add);
+
+        assertEquals(List.of(1, 2, 3), items);
+    }
+
+    @Test
+    void prefetch_failureSurfacesWhenPageIsReached() {
+        var iterator = new PagedIterator<Integer>("page1", url -> {
+            if (url.equals("page2")) {
+                throw new BuildkiteApiException(500, "boom");
+            }
+            return fetch(url);
+        }, Runnable::run);
+
+        assertEquals(1, iterator.next());
+        assertEquals(2, iterator.next());
+        var exception = assertThrows(BuildkiteApiException.class, iterator::hasNext);
+        assertEquals(500, exception.getStatusCode());
+    }
+
+    private PagedIterator.Page<Integer> fetch(String url) {
+        fetched.add(url);
+        return PAGES.get(url);
+    }
+}
@@ -0,0 +1,55 @@
+package io.jenkins.plugins.buildkite.api_client;
+
+import hudson.util.Secret;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares building the poll request through {@link BuildkiteApiClient.PipelineEndpoint} with formatting
+ * the URL and headers on every call, as the client used to.
+ * The {@code gc} profiler's {@code gc.alloc.rate.norm} shows the bytes allocated per request.
+ */
+@JmhBenchmark
+@State(Scope.Thread)
+public class PollRequestBenchmark {
+    private static final String API_BASE_URL = "https://api.buildkite.com/v2";
+
+    private Secret token;
+    private BuildkiteTokenPool tokens;
+    private BuildkiteApiClient client;
+    private int buildNumber;
+
+    @Setup
+    public void setUp() {
+        token = Secret.fromString("benchmark-token");
+        tokens = BuildkiteTokenPool.of(token);
+        client = new BuildkiteApiClient(tokens, API_BASE_URL);
+    }
+
+    @Benchmark
+    public HttpGet pipelineEndpoint() {
+        HttpGet request = client.getBuildRequest("my-org", "my-pipeline", ++buildNumber);
+        request.setHeader(tokens.leastLoaded().getAuthorizationHeader());
+        return request;
+    }
+
+    @Benchmark
+    public HttpGet formatted() {
+        var url = String.format(
+                "%s/organizations/%s/pipelines/%s/builds/%s",
+                API_BASE_URL,
+                "my-org",
+                "my-pipeline",
+                ++buildNumber
+        );
+
+        var request = new HttpGet(url);
+        request.setHeader("Content-Type", "application/json");
+        request.setHeader("Authorization", String.format("Bearer %s", token.getPlainText()));
+        return request;
+    }
+}
@@ -0,0 +1,143 @@
+package io.jenkins.plugins.buildkite.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BuildkiteBuildIndexTest {
+    @TempDir Path tempDir;
+
+    private Path file;
+    private BuildkiteBuildIndex index;
+
+    @BeforeEach
+    void setUp() {
+        file = tempDir.resolve("buildkite/builds.jsonl");
+        index = new BuildkiteBuildIndex(file, 2);
+    }
+
+    @Test
+    void find_returnsLastRecordedState() {
+        index.record(record(1, "abc123", "scheduled", "folder/job#1"));
+        index.record(record(1, "abc123", "passed", "folder/job#1"));
+
+        assertEquals("passed", index.find("my-org", "my-pipeline", 1).state());
+        assertNull(index.find("my-org", "my-pipeline", 2));
+    }
+
+    @Test
+    void find_loadsBuildsRecordedBeforeRestart() {
+        index.record(record(1, "abc123", "passed", "folder/job#1"));
+        index.record(record(2, "def456", "passed", "folder/job#2"));
+
+        assertEquals("abc123", new BuildkiteBuildIndex(file, 2).find("my-org", "my-pipeline", 1).commit());
+    }
+
+    @Test
+    void record_dropsOldestBuildsBeyondMaxRecords() {
+        index.record(record(1, "abc123", "passed", "folder/job#1"));
+        index.record(record(2, "def456", "passed", "folder/job#2"));
+        index.record(record(3, "fed789", "failed", "folder/job#3"));
+
+        assertNull(index.find("my-org", "my-pipeline", 1));
+        assertEquals(List.of(3, 2), index.query(record -> true, 10).stream().map(BuildkiteBuildRecord::number).toList());
+    }
+
+    @Test
+    void query_servesFromMemoryOnceLoaded() throws Exception {
+        index.record(record(1, "abc123", "passed", "folder/job#1"));
+        var reopened = new BuildkiteBuildIndex(file, 2);
+        reopened.load();
+        reopened.record(record(2, "def456", "scheduled", "folder/job#2"));
+
+        Files.delete(file);
+
+        assertEquals(List.of(2, 1), reopened.query(record -> true, 10).stream().map(BuildkiteBuildRecord::number).toList());
+    }
+
+    @Test
+    void load_keepsBuildsRecordedBeforeLoading() {
+        index.record(record(1, "abc123", "scheduled", "folder/job#1"));
+        var reopened = new BuildkiteBuildIndex(file, 2);
+        reopened.record(record(1, "abc123", "passed", "folder/job#1"));
+
+        assertEquals("passed", reopened.find("my-org", "my-pipeline", 1).state());
+    }
+
+    @Test
+    void findByCommit_matchesAbbreviatedCommits() {
+        index.record(record(1, "abc123", "failed", "folder/job#1"));
+        index.record(record(2, "def456", "passed", "folder/job#2"));
+        index.record(record(3, "abc123", "passed", "folder/job#3"));
+
+        List<BuildkiteBuildRecord> builds = index.findByCommit("my-org", "my-pipeline", "abc");
+
+        assertEquals(List.of(3, 1), builds.stream().map(BuildkiteBuildRecord::number).toList());
+    }
+
+    @Test
+    void findByRun_returnsBuildsOfRun() {
+        index.record(record(1, "abc123", "passed", "folder/job#1"));
+        index.record(record(2, "def456", "passed", "folder/job#2"));
+
+        assertEquals(2, index.findByRun("folder/job#2").get(0).number());
+    }
+
+    @Test
+    void compact_keepsLastLineOfEachBuild() throws Exception {
+        index.record(record(1, "abc123", "scheduled", "folder/job#1"));
+        index.record(record(2, "def456", "scheduled", "folder/job#2"));
+        index.record(record(1, "abc123", "passed", "folder/job#1"));
+
+        index.compact();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("\"number\":2"));
+        assertTrue(lines.get(1).contains("\"passed\""));
+        assertEquals("passed", new BuildkiteBuildIndex(file, 2).find("my-org", "my-pipeline", 1).state());
+    }
+
+    @Test
+    void record_startsNewLineAfterTruncatedLine() throws Exception {
+        index.record(record(1, "abc123", "passed", "folder/job#1"));
+        Files.writeString(file, "{\"organization\":\"my-o", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        var reopened = new BuildkiteBuildIndex(file, 2);
+        reopened.record(record(2, "def456", "failed", "folder/job#2"));
+
+        assertEquals("passed", new BuildkiteBuildIndex(file, 2).find("my-org", "my-pipeline", 1).state());
+        assertEquals("failed", new BuildkiteBuildIndex(file, 2).find("my-org", "my-pipeline", 2).state());
+    }
+
+    @Test
+    void memoryOnly_recordsWithoutFile() {
+        var memoryIndex = new BuildkiteBuildIndex(null, 2);
+        memoryIndex.record(record(1, "abc123", "passed", "folder/job#1"));
+
+        assertEquals("passed", memoryIndex.find("my-org", "my-pipeline", 1).state());
+        assertFalse(Files.exists(file));
+    }
+
+    private static BuildkiteBuildRecord record(int number, String commit, String state, String runId) {
+        return new BuildkiteBuildRecord(
+                "my-org",
+                "my-pipeline",
+                number,
+                commit,
+                "main",
+                state,
+                "https://buildkite.com/my-org/my-pipeline/builds/" + number,
+                runId,
+                1_700_000_000_000L + number
+        );
+    }
+}
@@ -0,0 +1,79 @@
+package io.jenkins.plugins.buildkite.step;
+
+import hudson.model.TaskListener;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteApiClient;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteBuild;
+import io.jenkins.plugins.buildkite.api_client.CreateBuildRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AgentBuildCallableTest {
+    private static final CreateBuildRequest REQUEST = CreateBuildRequest.builder().branch("main").commit("HEAD").build();
+
+    @Mock private BuildkiteApiClient mockClient;
+    @Mock private TaskListener mockListener;
+    @Mock private PrintStream mockConsole;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(mockListener.getLogger()).thenReturn(mockConsole);
+    }
+
+    @Test
+    void watch_pollsUntilFinished() throws Exception {
+        var createdBuild = BuildkiteBuild.builder().number(42).state("scheduled").webUrl("https://buildkite.com/org/pipeline/builds/42").build();
+        var runningBuild = BuildkiteBuild.builder().number(42).state("running").build();
+        var passedBuild = BuildkiteBuild.builder().number(42).state("passed").build();
+        when(mockClient.createBuild("org", "pipeline", REQUEST)).thenReturn(createdBuild);
+        when(mockClient.getBuild("org", "pipeline", 42)).thenReturn(runningBuild, runningBuild, passedBuild);
+
+        var build = newCallable(false, 0).watch(mockClient);
+
+        assertSame(passedBuild, build);
+        verify(mockClient, times(3)).getBuild("org", "pipeline", 42);
+        verify(mockConsole).println("org/pipeline#42 created: https://buildkite.com/org/pipeline/builds/42");
+        // Only state changes are logged
+        verify(mockConsole).println("  running");
+        verify(mockConsole).println("  passed");
+    }
+
+    @Test
+    void watch_async_returnsCreatedBuild() throws Exception {
+        var createdBuild = BuildkiteBuild.builder().number(42).state("scheduled").build();
+        when(mockClient.createBuild("org", "pipeline", REQUEST)).thenReturn(createdBuild);
+
+        var build = newCallable(true, 0).watch(mockClient);
+
+        assertSame(createdBuild, build);
+        verify(mockClient, never()).getBuild(anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    void watch_timeoutExpired_returnsUnfinishedBuild() throws Exception {
+        var createdBuild = BuildkiteBuild.builder().number(42).state("scheduled").build();
+        var runningBuild = BuildkiteBuild.builder().number(42).state("running").build();
+        when(mockClient.createBuild(anyString(), anyString(), any())).thenReturn(createdBuild);
+        when(mockClient.getBuild("org", "pipeline", 42)).thenReturn(runningBuild);
+
+        var build = newCallable(false, 50).watch(mockClient);
+
+        assertEquals("running", build.getState());
+    }
+
+    private AgentBuildCallable newCallable(boolean async, long timeoutMillis) {
+        return new AgentBuildCallable("org", "pipeline", REQUEST, null, "https://api.buildkite.com/v2",
+                async, timeoutMillis, 0, 10, mockListener);
+    }
+}
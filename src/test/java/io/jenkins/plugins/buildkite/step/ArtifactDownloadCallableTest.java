@@ -0,0 +1,102 @@
+package io.jenkins.plugins.buildkite.step;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArtifactDownloadCallableTest {
+    private static final byte[] CONTENT = "hello from buildkite".getBytes(StandardCharsets.UTF_8);
+    private static final String WRONG_SHA1 = "5b7a8e8c4b7e1c7d1c6a28c0d6c1f6b1e2f8f5c1";
+
+    @TempDir Path tempDir;
+
+    private HttpServer server;
+    private String url;
+    private final AtomicReference<String> lastRangeHeader = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/artifact", exchange -> {
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            lastRangeHeader.set(range);
+
+            int offset = range == null ? 0 : Integer.parseInt(range.replace("bytes=", "").replace("-", ""));
+            byte[] body = Arrays.copyOfRange(CONTENT, offset, CONTENT.length);
+
+            exchange.sendResponseHeaders(range == null ? 200 : 206, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        url = String.format("http://127.0.0.1:%d/artifact", server.getAddress().getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void invoke_downloadsIntoTarget() throws Exception {
+        File target = tempDir.resolve("dist/app.txt").toFile();
+
+        long size = new ArtifactDownloadCallable(url, CONTENT.length, null).invoke(target, null);
+
+        assertEquals(CONTENT.length, size);
+        assertArrayEquals(CONTENT, Files.readAllBytes(target.toPath()));
+        assertFalse(new File(target.getParentFile(), "app.txt.part").exists());
+        assertNull(lastRangeHeader.get());
+    }
+
+    @Test
+    void invoke_resumesPartialDownloadWithRangeRequest() throws Exception {
+        File target = tempDir.resolve("app.txt").toFile();
+        Files.write(tempDir.resolve("app.txt.part"), Arrays.copyOfRange(CONTENT, 0, 5));
+
+        new ArtifactDownloadCallable(url, CONTENT.length, null).invoke(target, null);
+
+        assertEquals("bytes=5-", lastRangeHeader.get());
+        assertArrayEquals(CONTENT, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    void invoke_checksumMismatch_throwsAndLeavesNoTarget() {
+        File target = tempDir.resolve("app.txt").toFile();
+
+        var exception = assertThrows(IOException.class, () -> {
+            new ArtifactDownloadCallable(url, CONTENT.length, WRONG_SHA1).invoke(target, null);
+        });
+
+        assertTrue(exception.getMessage().startsWith("Artifact checksum mismatch"));
+        assertFalse(target.exists());
+        assertFalse(tempDir.resolve("app.txt.part").toFile().exists());
+    }
+
+    @Test
+    void invoke_checksumMatches_keepsTarget() throws Exception {
+        File target = tempDir.resolve("app.txt").toFile();
+        String sha1 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(CONTENT));
+
+        new ArtifactDownloadCallable(url, CONTENT.length, sha1).invoke(target, null);
+
+        assertArrayEquals(CONTENT, Files.readAllBytes(target.toPath()));
+    }
+}
@@ -0,0 +1,81 @@
+package io.jenkins.plugins.buildkite.step;
+
+import io.jenkins.plugins.buildkite.api_client.BuildkiteBuild;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class BuildProgressReporterTest {
+
+    private final AtomicLong clock = new AtomicLong(0);
+    private PrintStream mockConsole;
+    private BuildProgressReporter reporter;
+
+    @BeforeEach
+    void setUp() {
+        mockConsole = mock(PrintStream.class);
+        reporter = new BuildProgressReporter(mockConsole, clock::get);
+    }
+
+    @Test
+    void report_printsOnlyStateTransitions() {
+        reporter.report(build("scheduled"));
+        clock.addAndGet(7000);
+        reporter.report(build("running"));
+        clock.addAndGet(7000);
+        reporter.report(build("running"));
+        clock.addAndGet(7000);
+        reporter.report(build("running"));
+        clock.addAndGet(7000);
+        reporter.report(build("passed"));
+
+        verify(mockConsole).println("  scheduled");
+        verify(mockConsole).println("  running");
+        verify(mockConsole).println("  passed");
+        verify(mockConsole, times(3)).println(anyString());
+    }
+
+    @Test
+    void report_printsRateLimitedJobSummaryWhileStateIsUnchanged() {
+        var runningBuild = BuildkiteBuild.builder()
+                .number(1)
+                .state("running")
+                .jobs(List.of(
+                        job("passed", false),
+                        job("passed", false),
+                        job("failed", true),
+                        job("failed", false),
+                        job("running", false),
+                        job("scheduled", false),
+                        BuildkiteJob.builder().type("waiter").build()
+                ))
+                .build();
+
+        reporter.report(runningBuild);
+        clock.addAndGet(BuildProgressReporter.SUMMARY_INTERVAL.toMillis() - 1);
+        reporter.report(runningBuild);
+        clock.addAndGet(1);
+        reporter.report(runningBuild);
+        clock.addAndGet(7000);
+        reporter.report(runningBuild);
+
+        verify(mockConsole).println("  running");
+        verify(mockConsole).println("  running: 2/5 jobs passed, 1 failed, 1 running (0:05:00 elapsed)");
+        verify(mockConsole, times(2)).println(anyString());
+    }
+
+    private static BuildkiteBuild build(String state) {
+        return BuildkiteBuild.builder().number(1).state(state).build();
+    }
+
+    private static BuildkiteJob job(String state, boolean retried) {
+        return BuildkiteJob.builder().type("script").state(state).retried(retried).build();
+    }
+}
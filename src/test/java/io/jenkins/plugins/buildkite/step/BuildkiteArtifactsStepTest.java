@@ -0,0 +1,71 @@
+package io.jenkins.plugins.buildkite.step;
+
+import io.jenkins.plugins.buildkite.api_client.BuildkiteArtifact;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class BuildkiteArtifactsStepTest {
+
+    private BuildkiteArtifactsStep step;
+
+    @BeforeEach
+    void setUp() {
+        step = new BuildkiteArtifactsStep("my-org", "my-pipeline", "creds-id", 42);
+    }
+
+    @Test
+    void constructor_setsRequiredFields() {
+        assertEquals("my-org", step.getOrganization());
+        assertEquals("my-pipeline", step.getPipeline());
+        assertEquals("creds-id", step.getCredentialsId());
+        assertEquals(42, step.getBuildNumber());
+    }
+
+    @Test
+    void constructor_setsDefaults() {
+        assertEquals("**", step.getPattern());
+        assertEquals("", step.getPath());
+        assertEquals(4, step.getConcurrency());
+    }
+
+    @Test
+    void setPattern_ignoresEmptyValue() {
+        step.setPattern("  ");
+        assertEquals("**", step.getPattern());
+    }
+
+    @Test
+    void setConcurrency_ignoresNonPositiveValue() {
+        step.setConcurrency(0);
+        assertEquals(4, step.getConcurrency());
+
+        step.setConcurrency(8);
+        assertEquals(8, step.getConcurrency());
+    }
+
+    @Test
+    void selectArtifacts_filtersByPatternStateAndPath() {
+        step.setPattern("dist/**");
+        var execution = new BuildkiteArtifactsStepExecution(step, mock(StepContext.class));
+
+        var selected = execution.selectArtifacts(List.of(
+                artifact("dist/app.jar", "finished"),
+                artifact("dist/app.jar.sig", "new"),
+                artifact("logs/test.log", "finished"),
+                artifact("dist/../../etc/passwd", "finished")
+        ));
+
+        assertEquals(1, selected.size());
+        assertEquals("dist/app.jar", selected.get(0).getPath());
+    }
+
+    private static BuildkiteArtifact artifact(String path, String state) {
+        return BuildkiteArtifact.builder().path(path).state(state).build();
+    }
+}
@@ -0,0 +1,79 @@
+package io.jenkins.plugins.buildkite.step;
+
+import io.jenkins.plugins.buildkite.api_client.BuildkiteBuild;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BuildkiteBuildActionTest {
+    private static final Instant CREATED_AT = Instant.parse("2025-01-01T10:00:00Z");
+
+    @Test
+    void constructor_recordsCreatedBuild() {
+        var build = BuildkiteBuild.builder().number(42).state("scheduled").webUrl("https://buildkite.com/org/pipeline/builds/42").build();
+
+        var action = new BuildkiteBuildAction("org", "pipeline", build, 250);
+
+        assertEquals(42, action.getBuildNumber());
+        assertEquals("scheduled", action.getState());
+        assertEquals("https://buildkite.com/org/pipeline/builds/42", action.getWebUrl());
+        assertEquals(250, action.getCreateLatencyMillis());
+        assertEquals(-1, action.getScheduledMillis());
+        assertEquals(-1, action.getRunningMillis());
+        assertEquals(0, action.getPollCount());
+    }
+
+    @Test
+    void recordPoll_computesTimings() {
+        var action = new BuildkiteBuildAction("org", "pipeline", BuildkiteBuild.builder().number(42).build(), 250);
+
+        action.recordPoll(BuildkiteBuild.builder()
+                .number(42)
+                .state("running")
+                .createdAt(CREATED_AT)
+                .scheduledAt(CREATED_AT.plusSeconds(1))
+                .startedAt(CREATED_AT.plusSeconds(31))
+                .build());
+
+        assertEquals(1, action.getPollCount());
+        assertEquals("running", action.getState());
+        assertEquals(30_000, action.getScheduledMillis());
+        assertEquals(-1, action.getRunningMillis());
+
+        action.recordPoll(BuildkiteBuild.builder()
+                .number(42)
+                .state("passed")
+                .createdAt(CREATED_AT)
+                .scheduledAt(CREATED_AT.plusSeconds(1))
+                .startedAt(CREATED_AT.plusSeconds(31))
+                .finishedAt(CREATED_AT.plusSeconds(151))
+                .build());
+
+        assertEquals(2, action.getPollCount());
+        assertEquals("passed", action.getState());
+        assertEquals(120_000, action.getRunningMillis());
+    }
+
+    @Test
+    void recordPoll_withoutScheduledAt_usesCreatedAt() {
+        var action = new BuildkiteBuildAction("org", "pipeline", BuildkiteBuild.builder().number(42).build(), 250);
+
+        action.recordPoll(BuildkiteBuild.builder()
+                .number(42)
+                .state("running")
+                .createdAt(CREATED_AT)
+                .startedAt(CREATED_AT.plusSeconds(5))
+                .build());
+
+        assertEquals(5_000, action.getScheduledMillis());
+    }
+
+    @Test
+    void formatMillis_unknownDuration() {
+        var action = new BuildkiteBuildAction("org", "pipeline", BuildkiteBuild.builder().number(42).build(), 250);
+
+        assertEquals("-", action.formatMillis(-1));
+    }
+}
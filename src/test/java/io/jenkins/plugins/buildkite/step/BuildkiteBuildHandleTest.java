@@ -0,0 +1,87 @@
+package io.jenkins.plugins.buildkite.step;
+
+import io.jenkins.plugins.buildkite.api_client.BuildkiteBuild;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteJob;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BuildkiteBuildHandleTest {
+
+    @Test
+    void accessors_returnTheCreatedBuild() {
+        var handle = handle(build(41, "scheduled"));
+
+        assertEquals("scheduled", handle.getState());
+        assertFalse(handle.finished());
+        assertFalse(handle.passed());
+    }
+
+    @Test
+    void update_replacesState() {
+        var handle = handle(build(42, "running"));
+
+        handle.update(build(42, "passed"));
+
+        assertEquals("passed", handle.getState());
+        assertTrue(handle.finished());
+        assertTrue(handle.passed());
+    }
+
+    @Test
+    void getJobs_returnsPlainMaps() {
+        var job = BuildkiteJob.builder().id("job-1").name("Tests").type("script").state("passed").build();
+        var handle = handle(BuildkiteBuild.builder().number(43).state("passed").jobs(List.of(job)).build());
+
+        List<Map<String, Object>> jobs = handle.getJobs();
+
+        assertEquals(1, jobs.size());
+        assertEquals("Tests", jobs.get(0).get("name"));
+        assertEquals("passed", jobs.get(0).get("state"));
+        assertEquals(false, jobs.get(0).get("retried"));
+    }
+
+    @Test
+    void serialization_keepsTheReferenceAndState() throws Exception {
+        var job = BuildkiteJob.builder().id("job-1").name("Tests").state("failed").build();
+        var handle = handle(BuildkiteBuild.builder()
+                .number(45)
+                .state("failed")
+                .webUrl("https://buildkite.com/test-org/test-pipeline/builds/45")
+                .jobs(List.of(job))
+                .build());
+
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new ObjectOutputStream(bytes)) {
+            out.writeObject(handle);
+        }
+        BuildkiteBuildHandle copy;
+        try (var in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (BuildkiteBuildHandle) in.readObject();
+        }
+
+        assertEquals("test-org", copy.getOrganization());
+        assertEquals("test-pipeline", copy.getPipeline());
+        assertEquals(45, copy.getNumber());
+        assertEquals("https://buildkite.com/test-org/test-pipeline/builds/45", copy.getWebUrl());
+        assertEquals("test-org/test-pipeline#45", copy.toString());
+        assertEquals("failed", copy.getState());
+        assertTrue(copy.finished());
+        assertEquals(List.of(), copy.getJobs());
+    }
+
+    private static BuildkiteBuildHandle handle(BuildkiteBuild build) {
+        return new BuildkiteBuildHandle("creds", "test-org", "test-pipeline", build);
+    }
+
+    private static BuildkiteBuild build(int number, String state) {
+        return BuildkiteBuild.builder().number(number).state(state).build();
+    }
+}
@@ -0,0 +1,65 @@
+package io.jenkins.plugins.buildkite.step;
+
+import io.jenkins.plugins.buildkite.api_client.BuildkiteBuild;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteBuildState;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteJob;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BuildkiteBuildResultTest {
+
+    @Test
+    void of_keepsWhatScriptsUse() {
+        var result = BuildkiteBuildResult.of(build());
+
+        assertEquals("2d841f58-6dd6-44f9-94ff-06d4ec7a6a0f", result.getId());
+        assertEquals(42, result.getNumber());
+        assertEquals("passed", result.getState());
+        assertEquals(BuildkiteBuildState.PASSED, result.getBuildState());
+        assertEquals("9eb03cc26", result.getCommit());
+        assertEquals("main", result.getBranch());
+        assertEquals("https://api.buildkite.com/v2/organizations/my-org/pipelines/my-pipeline/builds/42", result.getUrl());
+        assertEquals("https://buildkite.com/my-org/my-pipeline/builds/42", result.getWebUrl());
+        assertTrue(result.passed());
+    }
+
+    @Test
+    void serializesSmallerThanBuild() throws Exception {
+        var build = build();
+
+        assertTrue(serializedSize(BuildkiteBuildResult.of(build)) < serializedSize(build) / 2);
+    }
+
+    private static int serializedSize(Serializable object) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.size();
+    }
+
+    private static BuildkiteBuild build() {
+        return BuildkiteBuild.builder()
+                .id("2d841f58-6dd6-44f9-94ff-06d4ec7a6a0f")
+                .number(42)
+                .state("passed")
+                .commit("9eb03cc26")
+                .branch("main")
+                .message("Triggered by Jenkins build \"my-job #7\"")
+                .url("https://api.buildkite.com/v2/organizations/my-org/pipelines/my-pipeline/builds/42")
+                .webUrl("https://buildkite.com/my-org/my-pipeline/builds/42")
+                .createdAt(Instant.parse("2024-01-01T00:00:00Z"))
+                .startedAt(Instant.parse("2024-01-01T00:00:10Z"))
+                .finishedAt(Instant.parse("2024-01-01T00:05:00Z"))
+                .jobs(List.of(BuildkiteJob.builder().id("job-1").name("Tests").type("script").state("passed").build()))
+                .build();
+    }
+}
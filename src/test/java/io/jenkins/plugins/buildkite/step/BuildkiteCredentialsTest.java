@@ -0,0 +1,104 @@
+package io.jenkins.plugins.buildkite.step;
+
+import com.cloudbees.plugins.credentials.CredentialsProvider;
+import hudson.model.Item;
+import hudson.util.FormValidation;
+import org.jenkinsci.plugins.plaincredentials.StringCredentials;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BuildkiteCredentialsTest {
+
+    private MockedStatic<BuildkiteCredentials> credentials;
+
+    @BeforeEach
+    void setUp() {
+        // Lookups need a running Jenkins, so only they are stubbed, and only token-1 exists
+        credentials = mockStatic(BuildkiteCredentials.class, invocation ->
+                invocation.getMethod().getName().equals("find") ? null : invocation.callRealMethod());
+        credentials.when(() -> BuildkiteCredentials.find(any(), eq("token-1"))).thenReturn(mock(StringCredentials.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        credentials.close();
+    }
+
+    @Test
+    void ids_trimsAndSkipsEmptyEntries() {
+        assertEquals(List.of("token-1", "token-2"), BuildkiteCredentials.ids(" token-1, ,token-2 ,"));
+        assertEquals(List.of(), BuildkiteCredentials.ids(null));
+    }
+
+    @Test
+    void findMissing_namesEachMissingId() {
+        assertEquals(List.of("token-2", "token-3"), BuildkiteCredentials.findMissing("token-1, token-2, token-3"));
+        assertEquals(List.of(), BuildkiteCredentials.findMissing("token-1"));
+    }
+
+    @Test
+    void notFoundMessage_namesOnlyTheMissingIds() {
+        assertEquals("Could not find Credentials with id: token-2", BuildkiteCredentials.notFoundMessage("token-1,token-2"));
+    }
+
+    @Test
+    void checkCredentialsId_errorNamesTheMissingId() {
+        var item = mock(Item.class);
+        when(item.hasPermission(CredentialsProvider.USE_ITEM)).thenReturn(true);
+
+        FormValidation validation = BuildkiteStepSupport.checkCredentialsId(item, "token-1,token-2");
+
+        assertEquals(FormValidation.Kind.ERROR, validation.kind);
+        assertTrue(validation.getMessage().contains("token-2"));
+        assertFalse(validation.getMessage().contains("token-1"));
+        assertEquals(FormValidation.Kind.OK, BuildkiteStepSupport.checkCredentialsId(item, "token-1").kind);
+    }
+
+    @Test
+    void checkCredentialsId_looksUpInTheJob() {
+        var item = mock(Item.class);
+        when(item.hasPermission(CredentialsProvider.USE_ITEM)).thenReturn(true);
+
+        BuildkiteStepSupport.checkCredentialsId(item, "token-1");
+
+        credentials.verify(() -> BuildkiteCredentials.find(item, "token-1"));
+    }
+
+    @Test
+    void findTokens_requiresConfigureAndUseItem() {
+        var item = mock(Item.class);
+        when(item.hasPermission(Item.CONFIGURE)).thenReturn(true);
+
+        assertNull(BuildkiteStep.DescriptorImpl.findTokens(item, "token-1"));
+        assertNull(BuildkiteStep.DescriptorImpl.findTokens(null, "token-1"));
+        credentials.verify(() -> BuildkiteCredentials.find(any(), anyString()), never());
+    }
+
+    @Test
+    void findTokens_looksUpInTheJob() {
+        var item = mock(Item.class);
+        when(item.hasPermission(Item.CONFIGURE)).thenReturn(true);
+        when(item.hasPermission(CredentialsProvider.USE_ITEM)).thenReturn(true);
+
+        assertNull(BuildkiteStep.DescriptorImpl.findTokens(item, "token-2"));
+        credentials.verify(() -> BuildkiteCredentials.find(item, "token-2"));
+    }
+
+    @Test
+    void checkCredentialsId_withoutPermission_doesNotLookUp() {
+        var item = mock(Item.class);
+
+        assertEquals(FormValidation.Kind.OK, BuildkiteStepSupport.checkCredentialsId(item, "token-2").kind);
+        credentials.verify(() -> BuildkiteCredentials.find(any(), anyString()), never());
+    }
+}
@@ -0,0 +1,282 @@
+package io.jenkins.plugins.buildkite.step;
+
+import hudson.model.TaskListener;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteApiClient;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteApiException;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteBuild;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteInterruptedException;
+import io.jenkins.plugins.buildkite.api_client.CreateBuildRequest;
+import io.jenkins.plugins.buildkite.api_client.Deadline;
+import io.jenkins.plugins.buildkite.telemetry.BuildkiteMetrics;
+import org.jenkinsci.plugins.workflow.steps.FlowInterruptedException;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.jenkins.plugins.buildkite.step.BuildkiteDagStepTest.node;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class BuildkiteDagStepExecutionTest {
+
+    @Mock private StepContext mockContext;
+    @Mock private TaskListener mockListener;
+    @Mock private PrintStream mockConsole;
+    @Mock private BuildkiteApiClient mockClient;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+
+        when(mockContext.get(TaskListener.class)).thenReturn(mockListener);
+        when(mockListener.getLogger()).thenReturn(mockConsole);
+    }
+
+    @Test
+    void watch_createsDependentOnlyAfterItsDependencyPassed() throws Exception {
+        var nodes = List.of(node("build", "app", ""), node("deploy", "deploy", "build"));
+        when(mockClient.createBuild(eq("test-org"), anyString(), any(CreateBuildRequest.class)))
+                .thenAnswer(invocation -> build(invocation.getArgument(1).equals("app") ? 1 : 2, "scheduled"));
+        when(mockClient.getBuild("test-org", "app", 1)).thenReturn(build(1, "running"), build(1, "passed"));
+        when(mockClient.getBuild("test-org", "deploy", 2)).thenReturn(build(2, "passed"));
+
+        execution(nodes).watch(mockClient, BuildkiteDagStepExecution.topologicalOrder(nodes), mockConsole);
+
+        InOrder inOrder = inOrder(mockClient);
+        inOrder.verify(mockClient).createBuild(eq("test-org"), eq("app"), any(CreateBuildRequest.class));
+        inOrder.verify(mockClient, times(2)).getBuild("test-org", "app", 1);
+        inOrder.verify(mockClient).createBuild(eq("test-org"), eq("deploy"), any(CreateBuildRequest.class));
+        verify(mockContext).onSuccess(argThat(value -> value instanceof Map<?, ?> results
+                && results.keySet().equals(Set.of("build", "deploy"))));
+    }
+
+    @Test
+    void watch_skipsDownstreamOfFailureAndFinishesIndependentBranch() throws Exception {
+        var nodes = List.of(
+                node("build", "app", ""),
+                node("deploy", "deploy", "build"),
+                node("smoke", "smoke", "deploy"),
+                node("docs", "docs", "")
+        );
+        when(mockClient.createBuild(eq("test-org"), eq("app"), any(CreateBuildRequest.class))).thenReturn(build(1, "scheduled"));
+        when(mockClient.createBuild(eq("test-org"), eq("docs"), any(CreateBuildRequest.class))).thenReturn(build(5, "scheduled"));
+        when(mockClient.getBuild("test-org", "app", 1)).thenReturn(build(1, "failed"));
+        when(mockClient.getBuild("test-org", "docs", 5)).thenReturn(build(5, "running"), build(5, "passed"));
+
+        execution(nodes).watch(mockClient, BuildkiteDagStepExecution.topologicalOrder(nodes), mockConsole);
+
+        verify(mockClient, never()).createBuild(eq("test-org"), eq("deploy"), any(CreateBuildRequest.class));
+        verify(mockClient, never()).createBuild(eq("test-org"), eq("smoke"), any(CreateBuildRequest.class));
+        verify(mockClient, times(2)).getBuild("test-org", "docs", 5);
+        verify(mockConsole).println("deploy: skipped, a dependency did not pass");
+        verify(mockConsole).println("smoke: skipped, a dependency did not pass");
+        verify(mockContext).onFailure(any(FlowInterruptedException.class));
+        verify(mockContext, never()).onSuccess(any());
+    }
+
+    @Test
+    void watch_createFailureSkipsDependents() throws Exception {
+        var nodes = List.of(node("build", "app", ""), node("deploy", "deploy", "build"));
+        when(mockClient.createBuild(eq("test-org"), eq("app"), any(CreateBuildRequest.class)))
+                .thenThrow(new BuildkiteApiException(422, "Pipeline not found"));
+
+        execution(nodes).watch(mockClient, BuildkiteDagStepExecution.topologicalOrder(nodes), mockConsole);
+
+        verify(mockClient, never()).getBuild(anyString(), anyString(), anyInt());
+        verify(mockConsole).println("deploy: skipped, a dependency did not pass");
+        verify(mockContext).onFailure(any(FlowInterruptedException.class));
+    }
+
+    @Test
+    void watch_tagsEachBuildWithItsOwnIdempotencyKey() throws Exception {
+        var nodes = List.of(node("build", "app", ""), node("docs", "docs", ""));
+        when(mockClient.createBuild(eq("test-org"), anyString(), any(CreateBuildRequest.class))).thenReturn(build(1, "passed"));
+        when(mockClient.getBuild(eq("test-org"), anyString(), eq(1))).thenReturn(build(1, "passed"));
+
+        execution(nodes).watch(mockClient, BuildkiteDagStepExecution.topologicalOrder(nodes), mockConsole);
+
+        verify(mockClient, times(2)).createBuild(eq("test-org"), anyString(),
+                argThat(request -> request.getIdempotencyKey() != null));
+    }
+
+    @Test
+    void watch_unexpectedErrorFailsOnlyThatNode() throws Exception {
+        var nodes = List.of(node("build", "app", ""), node("docs", "docs", ""));
+        when(mockClient.createBuild(eq("test-org"), eq("app"), any(CreateBuildRequest.class)))
+                .thenThrow(new IllegalStateException("Connection reset"));
+        when(mockClient.createBuild(eq("test-org"), eq("docs"), any(CreateBuildRequest.class))).thenReturn(build(5, "scheduled"));
+        when(mockClient.getBuild("test-org", "docs", 5)).thenReturn(build(5, "passed"));
+
+        execution(nodes).watch(mockClient, BuildkiteDagStepExecution.topologicalOrder(nodes), mockConsole);
+
+        verify(mockConsole).println("build: failed to create Buildkite build: Connection reset");
+        verify(mockClient).getBuild("test-org", "docs", 5);
+        verify(mockContext).onFailure(any(FlowInterruptedException.class));
+    }
+
+    @Test
+    void watch_interruptedWhileWaitingForSharedPoll_cancelsWholeGraph() throws Exception {
+        var nodes = List.of(node("build", "app", ""), node("docs", "docs", ""));
+        when(mockClient.createBuild(eq("test-org"), anyString(), any(CreateBuildRequest.class)))
+                .thenAnswer(invocation -> build(invocation.getArgument(1).equals("app") ? 1 : 2, "scheduled"));
+        when(mockClient.getBuild("test-org", "app", 1))
+                .thenThrow(new BuildkiteInterruptedException(new InterruptedException()));
+
+        execution(nodes).watch(mockClient, BuildkiteDagStepExecution.topologicalOrder(nodes), mockConsole);
+
+        verify(mockConsole).println("Wait canceled");
+        verify(mockConsole, never()).println(startsWith("build: failed to get Buildkite build"));
+        verify(mockClient, never()).getBuild("test-org", "docs", 2);
+        verify(mockContext).onFailure(any(FlowInterruptedException.class));
+    }
+
+    @Test
+    void watch_registersWaitForEachRunningBuild() throws Exception {
+        var nodes = List.of(node("build", "app", ""), node("docs", "docs", ""));
+        when(mockClient.createBuild(eq("test-org"), eq("app"), any(CreateBuildRequest.class))).thenReturn(build(701, "scheduled"));
+        when(mockClient.createBuild(eq("test-org"), eq("docs"), any(CreateBuildRequest.class))).thenReturn(build(702, "scheduled"));
+
+        var registeredWaits = new ArrayList<BuildkiteWait>();
+        when(mockClient.getBuild("test-org", "app", 701)).thenAnswer(invocation -> {
+            registeredWaits.addAll(BuildkiteWaitRegistry.get().getWaits());
+            return build(701, "passed");
+        });
+        when(mockClient.getBuild("test-org", "docs", 702)).thenReturn(build(702, "passed"));
+
+        execution(nodes).watch(mockClient, BuildkiteDagStepExecution.topologicalOrder(nodes), mockConsole);
+
+        assertTrue(registeredWaits.stream().anyMatch(wait -> wait.getPipeline().equals("app") && wait.getBuildNumber() == 701));
+        assertTrue(registeredWaits.stream().anyMatch(wait -> wait.getPipeline().equals("docs") && wait.getBuildNumber() == 702));
+        assertTrue(BuildkiteWaitRegistry.get().getWaits().stream()
+                .noneMatch(wait -> wait.getBuildNumber() == 701 || wait.getBuildNumber() == 702));
+    }
+
+    @Test
+    void watch_forcedRefreshBypassesBuildCache() throws Exception {
+        var nodes = List.of(node("build", "app", ""));
+        when(mockClient.createBuild(eq("test-org"), eq("app"), any(CreateBuildRequest.class))).thenReturn(build(703, "scheduled"));
+        when(mockClient.getBuild("test-org", "app", 703)).thenAnswer(invocation -> {
+            BuildkiteWaitRegistry.get().getWaits().stream()
+                    .filter(wait -> wait.getBuildNumber() == 703)
+                    .forEach(BuildkiteWait::refresh);
+            return build(703, "running");
+        });
+        when(mockClient.refreshBuild("test-org", "app", 703)).thenReturn(build(703, "passed"));
+
+        execution(nodes).watch(mockClient, BuildkiteDagStepExecution.topologicalOrder(nodes), mockConsole);
+
+        verify(mockClient, times(1)).getBuild("test-org", "app", 703);
+        verify(mockClient, times(1)).refreshBuild("test-org", "app", 703);
+        verify(mockContext).onSuccess(any());
+    }
+
+    @Test
+    void watch_pausedBuild_suspendsPollingUntilResumed() throws Exception {
+        var nodes = List.of(node("build", "app", ""));
+        when(mockClient.createBuild(eq("test-org"), eq("app"), any(CreateBuildRequest.class))).thenReturn(build(704, "scheduled"));
+        when(mockClient.getBuild("test-org", "app", 704)).thenReturn(build(704, "passed"));
+
+        var step = new BuildkiteDagStep("test-org", "test-creds", nodes);
+        step.setMessage("Test message");
+        // Paused after the build is created for two pause checks, then resumed
+        var execution = new PausingBuildkiteDagStepExecution(step, mockContext, true, true, true, false);
+
+        execution.watch(mockClient, BuildkiteDagStepExecution.topologicalOrder(nodes), mockConsole);
+
+        InOrder inOrder = inOrder(mockConsole, mockClient);
+        inOrder.verify(mockConsole).println("Jenkins build paused, suspending polling of the Buildkite graph");
+        inOrder.verify(mockConsole).println("Jenkins build resumed, re-attaching to the Buildkite graph");
+        inOrder.verify(mockClient).getBuild("test-org", "app", 704);
+        assertTrue(execution.waitPausedWhileSleeping.contains(true));
+        assertEquals(0, BuildkiteMetrics.get().getPausedWaits());
+        verify(mockContext).onSuccess(any());
+    }
+
+    @Test
+    void watch_deadlineExpired_cancelsRunningBuildsAndAborts() throws Exception {
+        var nodes = List.of(node("build", "app", ""), node("deploy", "deploy", "build"));
+        when(mockClient.createBuild(eq("test-org"), eq("app"), any(CreateBuildRequest.class))).thenReturn(build(705, "scheduled"));
+
+        var step = new BuildkiteDagStep("test-org", "test-creds", nodes);
+        step.setMessage("Test message");
+        step.setTimeout(1);
+        step.setCancelOnTimeout(true);
+        var execution = new NoSleepBuildkiteDagStepExecution(step, mockContext);
+        Field deadline = BuildkiteDagStepExecution.class.getDeclaredField("deadline");
+        deadline.setAccessible(true);
+        deadline.set(execution, Deadline.after(Duration.ZERO));
+
+        execution.watch(mockClient, BuildkiteDagStepExecution.topologicalOrder(nodes), mockConsole);
+
+        verify(mockConsole).println("Timed out after 1 minutes waiting for the Buildkite graph");
+        verify(mockClient, never()).getBuild(anyString(), anyString(), anyInt());
+        verify(mockClient).cancelBuild("test-org", "app", 705);
+        verify(mockClient, never()).createBuild(eq("test-org"), eq("deploy"), any(CreateBuildRequest.class));
+        verify(mockContext).onFailure(any(FlowInterruptedException.class));
+        verify(mockContext, never()).onSuccess(any());
+    }
+
+    private BuildkiteDagStepExecution execution(List<BuildkiteDagNode> nodes) {
+        var step = new BuildkiteDagStep("test-org", "test-creds", nodes);
+        step.setMessage("Test message");
+        return new NoSleepBuildkiteDagStepExecution(step, mockContext);
+    }
+
+    private static BuildkiteBuild build(int number, String state) {
+        return BuildkiteBuild.builder()
+                .number(number)
+                .state(state)
+                .webUrl(String.format("https://buildkite.com/test-org/pipeline/builds/%d", number))
+                .build();
+    }
+
+    private static class NoSleepBuildkiteDagStepExecution extends BuildkiteDagStepExecution {
+        NoSleepBuildkiteDagStepExecution(BuildkiteDagStep step, StepContext context) {
+            super(step, context);
+        }
+
+        @Override
+        protected void sleepMillis(long millis) {
+            // Don't sleep in tests
+        }
+    }
+
+    private static class PausingBuildkiteDagStepExecution extends NoSleepBuildkiteDagStepExecution {
+        private final Deque<Boolean> pauseStates;
+        private final List<Boolean> waitPausedWhileSleeping = new ArrayList<>();
+
+        PausingBuildkiteDagStepExecution(BuildkiteDagStep step, StepContext context, Boolean... pauseStates) {
+            super(step, context);
+            this.pauseStates = new ArrayDeque<>(List.of(pauseStates));
+        }
+
+        @Override
+        protected void sleepMillis(long millis) {
+            BuildkiteWaitRegistry.get().getWaits().stream()
+                    .filter(wait -> wait.getBuildNumber() == 704)
+                    .forEach(wait -> waitPausedWhileSleeping.add(wait.isPaused()));
+        }
+
+        @Override
+        protected boolean isBuildPaused() {
+            Boolean paused = pauseStates.poll();
+            return paused != null && paused;
+        }
+    }
+}
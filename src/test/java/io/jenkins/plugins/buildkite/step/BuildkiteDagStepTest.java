@@ -0,0 +1,76 @@
+package io.jenkins.plugins.buildkite.step;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BuildkiteDagStepTest {
+
+    @Test
+    void constructor_setsDefaults() {
+        var step = new BuildkiteDagStep("my-org", "creds-id", List.of(node("build", "app", "")));
+
+        assertEquals("my-org", step.getOrganization());
+        assertEquals("creds-id", step.getCredentialsId());
+        assertEquals(1, step.getNodes().size());
+        assertEquals("main", step.getBranch());
+        assertEquals("HEAD", step.getCommit());
+        assertEquals(0, step.getTimeout());
+        assertFalse(step.isCancelOnTimeout());
+    }
+
+    @Test
+    void getDependencies_splitsAndTrimsNames() {
+        var node = node("deploy", "deploy", " build, lint ,,build");
+
+        assertEquals(List.of("build", "lint"), node.getDependencies());
+    }
+
+    @Test
+    void topologicalOrder_placesDependenciesFirst() {
+        var order = BuildkiteDagStepExecution.topologicalOrder(List.of(
+                node("deploy", "deploy", "build, test"),
+                node("test", "test", "build"),
+                node("build", "app", ""),
+                node("docs", "docs", "")
+        ));
+
+        assertEquals(List.of("build", "docs", "test", "deploy"), order.stream().map(BuildkiteDagNode::getName).toList());
+    }
+
+    @Test
+    void topologicalOrder_rejectsUnknownDependency() {
+        var exception = assertThrows(IllegalArgumentException.class, () -> BuildkiteDagStepExecution.topologicalOrder(List.of(
+                node("deploy", "deploy", "build")
+        )));
+
+        assertEquals("deploy depends on unknown node build", exception.getMessage());
+    }
+
+    @Test
+    void topologicalOrder_rejectsDuplicateNames() {
+        assertThrows(IllegalArgumentException.class, () -> BuildkiteDagStepExecution.topologicalOrder(List.of(
+                node("build", "app", ""),
+                node("build", "other", "")
+        )));
+    }
+
+    @Test
+    void topologicalOrder_rejectsCycle() {
+        var exception = assertThrows(IllegalArgumentException.class, () -> BuildkiteDagStepExecution.topologicalOrder(List.of(
+                node("build", "app", ""),
+                node("a", "a", "build, b"),
+                node("b", "b", "a")
+        )));
+
+        assertEquals("dependency cycle between a, b", exception.getMessage());
+    }
+
+    static BuildkiteDagNode node(String name, String pipeline, String dependsOn) {
+        var node = new BuildkiteDagNode(name, pipeline);
+        node.setDependsOn(dependsOn);
+        return node;
+    }
+}
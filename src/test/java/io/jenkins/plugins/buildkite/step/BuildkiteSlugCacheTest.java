@@ -0,0 +1,138 @@
+package io.jenkins.plugins.buildkite.step;
+
+import io.jenkins.plugins.buildkite.api_client.BuildkiteTokenPool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BuildkiteSlugCacheTest {
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final List<Runnable> pending = new ArrayList<>();
+    private BuildkiteSlugCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new BuildkiteSlugCache(pending::add, now::get);
+    }
+
+    @Test
+    void lookup_returnsNullUntilFirstRefreshCompletes() {
+        assertNull(cache.lookup("creds", () -> List.of("acme")));
+        assertEquals(1, pending.size());
+
+        runPending();
+
+        assertEquals(List.of("acme"), cache.lookup("creds", () -> List.of("other")));
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    void getOrganizations_keysByTokensRatherThanCredentialsId() {
+        cache.getOrganizations(tokens("fingerprint-1"));
+        cache.getOrganizations(tokens("fingerprint-1"));
+        assertEquals(1, pending.size());
+
+        cache.getOrganizations(tokens("fingerprint-2"));
+        cache.getPipelines(tokens("fingerprint-1"), "acme");
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    void lookup_startsOneRefreshAtATime() {
+        cache.lookup("creds", () -> List.of("acme"));
+        cache.lookup("creds", () -> List.of("acme"));
+
+        assertEquals(1, pending.size());
+    }
+
+    @Test
+    void lookup_servesStaleSlugsWhileRefreshing() {
+        cache.lookup("creds", () -> List.of("acme"));
+        runPending();
+
+        now.addAndGet(BuildkiteSlugCache.TTL.toMillis());
+
+        assertEquals(List.of("acme"), cache.lookup("creds", () -> List.of("acme", "globex")));
+        runPending();
+        assertEquals(List.of("acme", "globex"), cache.lookup("creds", List::of));
+    }
+
+    @Test
+    void lookup_failedFirstRefreshIsNotCached() {
+        cache.lookup("creds/typo", () -> {
+            throw new IllegalStateException("404 Not Found");
+        });
+        runPending();
+
+        assertEquals(0, cache.size());
+        assertNull(cache.lookup("creds/typo", () -> List.of("web")));
+        assertEquals(1, pending.size());
+    }
+
+    @Test
+    void lookup_failedRefreshKeepsSlugsAndIsRetriedAfterDelay() {
+        var calls = new AtomicInteger();
+
+        cache.lookup("creds", () -> List.of("acme"));
+        runPending();
+        now.addAndGet(BuildkiteSlugCache.TTL.toMillis());
+
+        cache.lookup("creds", () -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("boom");
+        });
+        runPending();
+
+        assertEquals(List.of("acme"), cache.lookup("creds", () -> List.of("globex")));
+        assertTrue(pending.isEmpty());
+        assertEquals(1, calls.get());
+
+        now.addAndGet(BuildkiteSlugCache.RETRY_AFTER.toMillis());
+        cache.lookup("creds", () -> List.of("globex"));
+        runPending();
+
+        assertEquals(List.of("globex"), cache.lookup("creds", List::of));
+    }
+
+    @Test
+    void lookup_evictsLeastRecentlyUsedKeysBeyondMaxEntries() {
+        cache.lookup("creds/first", () -> List.of("web"));
+        for (int i = 0; i < BuildkiteSlugCache.MAX_ENTRIES; i++) {
+            cache.lookup("creds/org-" + i, () -> List.of("web"));
+        }
+        runPending();
+
+        assertEquals(BuildkiteSlugCache.MAX_ENTRIES, cache.size());
+        assertNull(cache.lookup("creds/first", () -> List.of("web")));
+    }
+
+    @Test
+    void lookup_keysAreCachedSeparately() {
+        cache.lookup("creds/acme", () -> List.of("web"));
+        cache.lookup("creds/globex", () -> List.of("api"));
+        runPending();
+
+        assertEquals(List.of("web"), cache.lookup("creds/acme", List::of));
+        assertEquals(List.of("api"), cache.lookup("creds/globex", List::of));
+    }
+
+    private void runPending() {
+        var tasks = new ArrayList<>(pending);
+        pending.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private static BuildkiteTokenPool tokens(String fingerprint) {
+        var tokens = mock(BuildkiteTokenPool.class);
+        when(tokens.getFingerprint()).thenReturn(fingerprint);
+        return tokens;
+    }
+}
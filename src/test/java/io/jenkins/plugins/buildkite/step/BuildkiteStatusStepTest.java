@@ -0,0 +1,107 @@
+package io.jenkins.plugins.buildkite.step;
+
+import hudson.model.TaskListener;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteApiException;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteBuild;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteTokenPool;
+import org.jenkinsci.plugins.workflow.steps.FlowInterruptedException;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.MockitoAnnotations;
+
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BuildkiteStatusStepTest {
+
+    @Mock private StepContext mockContext;
+    @Mock private TaskListener mockListener;
+    @Mock private PrintStream mockConsole;
+
+    private BuildkiteBuildHandle handle;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+
+        when(mockContext.get(TaskListener.class)).thenReturn(mockListener);
+        when(mockListener.getLogger()).thenReturn(mockConsole);
+
+        handle = new BuildkiteBuildHandle("test-creds", "test-org", "test-pipeline",
+                BuildkiteBuild.builder().number(42).state("scheduled").build());
+    }
+
+    @Test
+    void descriptor_namesTheStep() {
+        assertEquals("buildkiteStatus", new BuildkiteStatusStep.DescriptorImpl().getFunctionName());
+    }
+
+    @Test
+    void run_updatesAndReturnsTheHandle() throws Exception {
+        var execution = new FakeExecution(new BuildkiteStatusStep(handle), mockContext,
+                BuildkiteBuild.builder().number(42).state("passed").build());
+
+        try (MockedStatic<BuildkiteCredentials> credentials = mockStatic(BuildkiteCredentials.class)) {
+            credentials.when(() -> BuildkiteCredentials.findTokenPool("test-creds")).thenReturn(mock(BuildkiteTokenPool.class));
+
+            assertSame(handle, execution.run());
+        }
+
+        assertEquals("passed", handle.getState());
+        assertTrue(handle.passed());
+    }
+
+    @Test
+    void run_missingCredentials_failsWithoutChangingTheHandle() throws Exception {
+        var execution = new FakeExecution(new BuildkiteStatusStep(handle), mockContext,
+                BuildkiteBuild.builder().number(42).state("passed").build());
+
+        // Only the lookups are stubbed, so the message comes from the real methods
+        try (MockedStatic<BuildkiteCredentials> credentials = mockStatic(BuildkiteCredentials.class, invocation ->
+                invocation.getMethod().getName().equals("find") ? null : invocation.callRealMethod())) {
+            assertNull(execution.run());
+        }
+
+        verify(mockConsole).println("Could not find Credentials with id: test-creds");
+        verify(mockContext).onFailure(any(FlowInterruptedException.class));
+        assertEquals("scheduled", handle.getState());
+    }
+
+    @Test
+    void run_apiError_failsWithoutChangingTheHandle() throws Exception {
+        var execution = new FakeExecution(new BuildkiteStatusStep(handle), mockContext, null);
+
+        try (MockedStatic<BuildkiteCredentials> credentials = mockStatic(BuildkiteCredentials.class)) {
+            credentials.when(() -> BuildkiteCredentials.findTokenPool("test-creds")).thenReturn(mock(BuildkiteTokenPool.class));
+
+            assertNull(execution.run());
+        }
+
+        verify(mockConsole).println("Failed to get Buildkite build test-org/test-pipeline#42: Buildkite API request failed with status 404: Not Found");
+        verify(mockContext).onFailure(any(FlowInterruptedException.class));
+        assertEquals("scheduled", handle.getState());
+    }
+
+    private static class FakeExecution extends BuildkiteStatusStepExecution {
+        private final BuildkiteBuild build;
+
+        FakeExecution(BuildkiteStatusStep step, StepContext context, BuildkiteBuild build) {
+            super(step, context);
+            this.build = build;
+        }
+
+        @Override
+        BuildkiteBuild fetch(BuildkiteTokenPool tokens, BuildkiteBuildHandle handle) {
+            if (this.build == null) {
+                throw new BuildkiteApiException(404, "Not Found");
+            }
+            return this.build;
+        }
+    }
+}
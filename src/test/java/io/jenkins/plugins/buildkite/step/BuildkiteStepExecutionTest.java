@@ -3,7 +3,13 @@ package io.jenkins.plugins.buildkite.step;
 import hudson.model.TaskListener;
 import io.jenkins.plugins.buildkite.api_client.BuildkiteApiClient;
 import io.jenkins.plugins.buildkite.api_client.BuildkiteBuild;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteInterruptedException;
+import io.jenkins.plugins.buildkite.api_client.BuildkiteJob;
 import io.jenkins.plugins.buildkite.api_client.CreateBuildRequest;
+import io.jenkins.plugins.buildkite.api_client.Deadline;
+import io.jenkins.plugins.buildkite.telemetry.BuildkiteMetrics;
+import io.jenkins.plugins.buildkite.telemetry.BuildkiteSpan;
+import io.jenkins.plugins.buildkite.telemetry.BuildkiteTracer;
 import org.jenkinsci.plugins.workflow.steps.FlowInterruptedException;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,11 +18,26 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 class BuildkiteStepExecutionTest {
@@ -83,6 +104,176 @@ class BuildkiteStepExecutionTest {
         assertEquals("Custom build message", request.getMessage());
     }
 
+    @Test
+    void waitForBuildCompletion_registersWaitWhilePolling() throws Exception {
+        var mockClient = mock(BuildkiteApiClient.class);
+        var initialBuild = BuildkiteBuild.builder().number(321).build();
+        var passedBuild = BuildkiteBuild.builder().number(321).state("passed").build();
+
+        var registeredWaits = new ArrayList<BuildkiteWait>();
+        when(mockClient.getBuild("test-org", "test-pipeline", 321)).thenAnswer(invocation -> {
+            registeredWaits.addAll(BuildkiteWaitRegistry.get().getWaits());
+            return passedBuild;
+        });
+
+        var testStepExecution = new NoSleepBuildkiteStepExecution(step, mockContext);
+        Method method = BuildkiteStepExecution.class.getDeclaredMethod(
+                "waitForBuildCompletion", BuildkiteApiClient.class, BuildkiteBuild.class, PrintStream.class
+        );
+        method.setAccessible(true);
+        method.invoke(testStepExecution, mockClient, initialBuild, mockConsole);
+
+        assertTrue(registeredWaits.stream().anyMatch(wait -> wait.getBuildNumber() == 321));
+        assertTrue(BuildkiteWaitRegistry.get().getWaits().stream().noneMatch(wait -> wait.getBuildNumber() == 321));
+    }
+
+    @Test
+    void waitForBuildCompletion_completeSpanEndsWhenFinishingFails() throws Exception {
+        var mockClient = mock(BuildkiteApiClient.class);
+        var initialBuild = BuildkiteBuild.builder().number(124).build();
+        when(mockClient.getBuild("test-org", "test-pipeline", 124))
+                .thenReturn(BuildkiteBuild.builder().number(124).state("passed").build());
+        doThrow(new IllegalStateException("context gone")).when(mockContext).onSuccess(any());
+
+        var spans = new ArrayList<BuildkiteSpan>();
+        var tracer = new BuildkiteTracer(List.of(spans::add));
+        var triggerSpan = tracer.startSpan("buildkite.trigger", null);
+
+        var testStepExecution = new NoSleepBuildkiteStepExecution(step, mockContext);
+        setField(testStepExecution, "tracer", tracer);
+        setField(testStepExecution, "triggerSpan", triggerSpan);
+
+        Method method = BuildkiteStepExecution.class.getDeclaredMethod(
+                "waitForBuildCompletion", BuildkiteApiClient.class, BuildkiteBuild.class, PrintStream.class
+        );
+        method.setAccessible(true);
+
+        var exception = assertThrows(InvocationTargetException.class,
+                () -> method.invoke(testStepExecution, mockClient, initialBuild, mockConsole));
+
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+        assertEquals("buildkite.complete", spans.get(spans.size() - 1).getName());
+    }
+
+    @Test
+    void waitForBuildCompletion_forcedRefreshBypassesBuildCache() throws Exception {
+        var mockClient = mock(BuildkiteApiClient.class);
+        var initialBuild = BuildkiteBuild.builder().number(322).build();
+        var runningBuild = BuildkiteBuild.builder().number(322).state("running").build();
+        var passedBuild = BuildkiteBuild.builder().number(322).state("passed").build();
+
+        when(mockClient.getBuild("test-org", "test-pipeline", 322)).thenAnswer(invocation -> {
+            BuildkiteWaitRegistry.get().getWaits().stream()
+                    .filter(wait -> wait.getBuildNumber() == 322)
+                    .forEach(BuildkiteWait::refresh);
+            return runningBuild;
+        });
+        when(mockClient.refreshBuild("test-org", "test-pipeline", 322)).thenReturn(passedBuild);
+
+        var testStepExecution = new NoSleepBuildkiteStepExecution(step, mockContext);
+        Method method = BuildkiteStepExecution.class.getDeclaredMethod(
+                "waitForBuildCompletion", BuildkiteApiClient.class, BuildkiteBuild.class, PrintStream.class
+        );
+        method.setAccessible(true);
+        method.invoke(testStepExecution, mockClient, initialBuild, mockConsole);
+
+        verify(mockClient, times(1)).getBuild("test-org", "test-pipeline", 322);
+        verify(mockClient, times(1)).refreshBuild("test-org", "test-pipeline", 322);
+        verify(mockContext).onSuccess(passedResult(322));
+    }
+
+    @Test
+    void waitForBuildCompletion_recordsPollsOnBuildAction() throws Exception {
+        var mockClient = mock(BuildkiteApiClient.class);
+        var initialBuild = BuildkiteBuild.builder().number(654).state("scheduled").build();
+        var runningBuild = BuildkiteBuild.builder().number(654).state("running").build();
+        var passedBuild = BuildkiteBuild.builder().number(654).state("passed").build();
+        when(mockClient.getBuild("test-org", "test-pipeline", 654)).thenReturn(runningBuild, passedBuild);
+
+        var buildAction = new BuildkiteBuildAction("test-org", "test-pipeline", initialBuild, 100);
+        var testStepExecution = new NoSleepBuildkiteStepExecution(step, mockContext);
+        setField(testStepExecution, "buildAction", buildAction);
+
+        Method method = BuildkiteStepExecution.class.getDeclaredMethod(
+                "waitForBuildCompletion", BuildkiteApiClient.class, BuildkiteBuild.class, PrintStream.class
+        );
+        method.setAccessible(true);
+        method.invoke(testStepExecution, mockClient, initialBuild, mockConsole);
+
+        assertEquals(2, buildAction.getPollCount());
+        assertEquals("passed", buildAction.getState());
+    }
+
+    @Test
+    void generateCreateBuildRequest_tracingDisabled_omitsTraceContext() throws Exception {
+        Method method = BuildkiteStepExecution.class.getDeclaredMethod("generateCreateBuildRequest");
+        method.setAccessible(true);
+
+        var request = (CreateBuildRequest) method.invoke(stepExecution);
+
+        assertNull(request.getEnv());
+        assertFalse(request.getMetaData().containsKey("traceparent"));
+    }
+
+    @Test
+    void generateCreateBuildRequest_tagsBuildWithIdempotencyKey() throws Exception {
+        Method method = BuildkiteStepExecution.class.getDeclaredMethod("generateCreateBuildRequest");
+        method.setAccessible(true);
+
+        var first = (CreateBuildRequest) method.invoke(stepExecution);
+        var second = (CreateBuildRequest) method.invoke(stepExecution);
+
+        assertNotNull(first.getIdempotencyKey());
+        assertEquals(first.getIdempotencyKey(), first.getMetaData().get(CreateBuildRequest.IDEMPOTENCY_KEY));
+        assertNotEquals(first.getIdempotencyKey(), second.getIdempotencyKey());
+    }
+
+    @Test
+    void generateCreateBuildRequest_tracingEnabled_propagatesTraceparent() throws Exception {
+        var tracer = new BuildkiteTracer(List.of(span -> {}));
+        var triggerSpan = tracer.startSpan("buildkite.trigger", null);
+        setField(stepExecution, "tracer", tracer);
+        setField(stepExecution, "triggerSpan", triggerSpan);
+
+        Method method = BuildkiteStepExecution.class.getDeclaredMethod("generateCreateBuildRequest");
+        method.setAccessible(true);
+
+        var request = (CreateBuildRequest) method.invoke(stepExecution);
+
+        assertEquals(triggerSpan.traceparent(), request.getEnv().get("TRACEPARENT"));
+        assertEquals(triggerSpan.traceparent(), request.getMetaData().get("traceparent"));
+    }
+
+    @Test
+    void waitForBuildCompletion_recordsPollAndCompleteSpans() throws Exception {
+        var mockClient = mock(BuildkiteApiClient.class);
+        var initialBuild = BuildkiteBuild.builder().number(123).build();
+        var runningBuild = BuildkiteBuild.builder().number(123).state("running").build();
+        var passedBuild = BuildkiteBuild.builder().number(123).state("passed").build();
+        when(mockClient.getBuild("test-org", "test-pipeline", 123)).thenReturn(runningBuild, passedBuild);
+
+        var spans = new ArrayList<BuildkiteSpan>();
+        var tracer = new BuildkiteTracer(List.of(spans::add));
+        var triggerSpan = tracer.startSpan("buildkite.trigger", null);
+
+        var testStepExecution = new NoSleepBuildkiteStepExecution(step, mockContext);
+        setField(testStepExecution, "tracer", tracer);
+        setField(testStepExecution, "triggerSpan", triggerSpan);
+
+        Method method = BuildkiteStepExecution.class.getDeclaredMethod(
+                "waitForBuildCompletion", BuildkiteApiClient.class, BuildkiteBuild.class, PrintStream.class
+        );
+        method.setAccessible(true);
+        method.invoke(testStepExecution, mockClient, initialBuild, mockConsole);
+
+        assertEquals(List.of("buildkite.poll", "buildkite.poll", "buildkite.complete"),
+                spans.stream().map(BuildkiteSpan::getName).toList());
+        assertEquals("running", spans.get(0).getAttributes().get("buildkite.build.state"));
+        assertEquals("passed", spans.get(2).getAttributes().get("buildkite.build.state"));
+        assertTrue(spans.stream().allMatch(span -> span.getParentSpanId().equals(triggerSpan.getSpanId())));
+        assertTrue(spans.stream().allMatch(span -> span.getTraceId().equals(triggerSpan.getTraceId())));
+    }
+
     @Test
     void waitForBuildCompletion_buildPassesImmediately() throws Exception {
         var mockClient = mock(BuildkiteApiClient.class);
@@ -110,10 +301,29 @@ class BuildkiteStepExecutionTest {
         verify(mockConsole).println("Waiting for build to finish");
         verify(mockConsole).println("  passed");
         verify(mockConsole).println("test-org/test-pipeline#123 finished with state: passed");
-        verify(mockContext).onSuccess(initialBuild);
+        verify(mockContext).onSuccess(passedResult(123));
         verify(mockContext, never()).onFailure(any());
     }
 
+    @Test
+    void waitForBuildCompletion_interruptedWhileWaitingForSharedPoll_cancelsWait() throws Exception {
+        var mockClient = mock(BuildkiteApiClient.class);
+        var initialBuild = BuildkiteBuild.builder().number(458).build();
+        when(mockClient.getBuild("test-org", "test-pipeline", 458))
+                .thenThrow(new BuildkiteInterruptedException(new InterruptedException()));
+
+        var testStepExecution = new NoSleepBuildkiteStepExecution(step, mockContext);
+        Method method = BuildkiteStepExecution.class.getDeclaredMethod(
+                "waitForBuildCompletion", BuildkiteApiClient.class, BuildkiteBuild.class, PrintStream.class
+        );
+        method.setAccessible(true);
+        method.invoke(testStepExecution, mockClient, initialBuild, mockConsole);
+
+        verify(mockConsole).println("Wait canceled");
+        verify(mockContext).onFailure(any(FlowInterruptedException.class));
+        verify(mockContext, never()).onSuccess(any());
+    }
+
     @Test
     void waitForBuildCompletion_buildFails() throws Exception {
         var mockClient = mock(BuildkiteApiClient.class);
@@ -180,7 +390,180 @@ class BuildkiteStepExecutionTest {
         verify(mockConsole).println("  running");
         verify(mockConsole).println("  passed");
         verify(mockConsole).println("test-org/test-pipeline#789 finished with state: passed");
-        verify(mockContext).onSuccess(initialBuild);
+        verify(mockContext).onSuccess(passedResult(789));
+    }
+
+    @Test
+    void waitForBuildCompletion_retriesFailedJobsThenPasses() throws Exception {
+        step.setRetryFailedJobs(2);
+        var mockClient = mock(BuildkiteApiClient.class);
+        var initialBuild = BuildkiteBuild.builder().number(321).build();
+
+        var testStepExecution = new NoSleepBuildkiteStepExecution(step, mockContext);
+
+        var failedJob = BuildkiteJob.builder().id("job-1").name("flaky specs").type("script").state("failed").build();
+        var passedJob = BuildkiteJob.builder().id("job-2").name("lint").type("script").state("passed").build();
+        var failedBuild = BuildkiteBuild.builder()
+                .number(321)
+                .state("failed")
+                .jobs(List.of(failedJob, passedJob))
+                .build();
+        var passedBuild = BuildkiteBuild.builder()
+                .number(321)
+                .state("passed")
+                .build();
+
+        when(mockClient.getBuild("test-org", "test-pipeline", 321)).thenReturn(failedBuild);
+        when(mockClient.refreshBuild("test-org", "test-pipeline", 321)).thenReturn(passedBuild);
+
+        Method method = BuildkiteStepExecution.class.getDeclaredMethod(
+                "waitForBuildCompletion",
+                BuildkiteApiClient.class,
+                BuildkiteBuild.class,
+                PrintStream.class
+        );
+        method.setAccessible(true);
+
+        method.invoke(testStepExecution, mockClient, initialBuild, mockConsole);
+
+        verify(mockConsole).println("Retrying 1 failed jobs of test-org/test-pipeline#321 (retry 1 of 2)");
+        verify(mockClient).retryJob("test-org", "test-pipeline", 321, "job-1");
+        verify(mockClient, never()).retryJob("test-org", "test-pipeline", 321, "job-2");
+        verify(mockContext).onSuccess(passedResult(321));
+        verify(mockContext, never()).onFailure(any());
+    }
+
+    @Test
+    void waitForBuildCompletion_staleFailedStateAfterRetryIsNotFinal() throws Exception {
+        step.setRetryFailedJobs(1);
+        var mockClient = mock(BuildkiteApiClient.class);
+        var initialBuild = BuildkiteBuild.builder().number(323).build();
+
+        var testStepExecution = new NoSleepBuildkiteStepExecution(step, mockContext);
+
+        var failedBuild = BuildkiteBuild.builder()
+                .number(323)
+                .state("failed")
+                .jobs(List.of(BuildkiteJob.builder().id("job-1").type("script").state("failed").build()))
+                .build();
+        var runningBuild = BuildkiteBuild.builder()
+                .number(323)
+                .state("running")
+                .jobs(List.of(
+                        BuildkiteJob.builder().id("job-1").type("script").state("failed").retried(true).build(),
+                        BuildkiteJob.builder().id("job-1b").type("script").state("running").build()
+                ))
+                .build();
+        var passedBuild = BuildkiteBuild.builder().number(323).state("passed").build();
+
+        // The first poll after the retry still sees the build as it was before it
+        when(mockClient.getBuild("test-org", "test-pipeline", 323)).thenReturn(failedBuild, passedBuild);
+        when(mockClient.refreshBuild("test-org", "test-pipeline", 323)).thenReturn(failedBuild, runningBuild);
+
+        Method method = BuildkiteStepExecution.class.getDeclaredMethod(
+                "waitForBuildCompletion", BuildkiteApiClient.class, BuildkiteBuild.class, PrintStream.class
+        );
+        method.setAccessible(true);
+        method.invoke(testStepExecution, mockClient, initialBuild, mockConsole);
+
+        verify(mockClient, times(1)).retryJob("test-org", "test-pipeline", 323, "job-1");
+        verify(mockClient, times(2)).refreshBuild("test-org", "test-pipeline", 323);
+        verify(mockContext).onSuccess(passedResult(323));
+        verify(mockContext, never()).onFailure(any());
+    }
+
+    @Test
+    void waitForBuildCompletion_stopsRetryingWhenRetriesExhausted() throws Exception {
+        step.setRetryFailedJobs(1);
+        var mockClient = mock(BuildkiteApiClient.class);
+        var initialBuild = BuildkiteBuild.builder().number(654).build();
+
+        var testStepExecution = new NoSleepBuildkiteStepExecution(step, mockContext);
+
+        var failedBuild = BuildkiteBuild.builder()
+                .number(654)
+                .state("failed")
+                .jobs(List.of(BuildkiteJob.builder().id("job-1").type("script").state("failed").build()))
+                .build();
+
+        when(mockClient.getBuild("test-org", "test-pipeline", 654)).thenReturn(failedBuild);
+        when(mockClient.refreshBuild("test-org", "test-pipeline", 654)).thenReturn(failedBuild);
+
+        Method method = BuildkiteStepExecution.class.getDeclaredMethod(
+                "waitForBuildCompletion",
+                BuildkiteApiClient.class,
+                BuildkiteBuild.class,
+                PrintStream.class
+        );
+        method.setAccessible(true);
+
+        method.invoke(testStepExecution, mockClient, initialBuild, mockConsole);
+
+        verify(mockClient, times(1)).retryJob("test-org", "test-pipeline", 654, "job-1");
+        verify(mockContext).onFailure(any(FlowInterruptedException.class));
+        verify(mockContext, never()).onSuccess(any());
+    }
+
+    @Test
+    void waitForBuildCompletion_deadlineExpired_cancelsBuildAndAborts() throws Exception {
+        step.setTimeout(1);
+        step.setCancelOnTimeout(true);
+        var mockClient = mock(BuildkiteApiClient.class);
+        var initialBuild = BuildkiteBuild.builder().number(987).build();
+
+        var testStepExecution = new NoSleepBuildkiteStepExecution(step, mockContext);
+        Field deadline = BuildkiteStepExecution.class.getDeclaredField("deadline");
+        deadline.setAccessible(true);
+        deadline.set(testStepExecution, Deadline.after(Duration.ZERO));
+
+        Method method = BuildkiteStepExecution.class.getDeclaredMethod(
+                "waitForBuildCompletion",
+                BuildkiteApiClient.class,
+                BuildkiteBuild.class,
+                PrintStream.class
+        );
+        method.setAccessible(true);
+
+        method.invoke(testStepExecution, mockClient, initialBuild, mockConsole);
+
+        verify(mockConsole).println("Timed out after 1 minutes waiting for test-org/test-pipeline#987");
+        verify(mockClient, never()).getBuild(anyString(), anyString(), anyInt());
+        verify(mockClient).cancelBuild("test-org", "test-pipeline", 987);
+        verify(mockContext).onFailure(any(FlowInterruptedException.class));
+        verify(mockContext, never()).onSuccess(any());
+    }
+
+    @Test
+    void waitForBuildCompletion_pausedBuild_suspendsPollingUntilResumed() throws Exception {
+        var mockClient = mock(BuildkiteApiClient.class);
+        var initialBuild = BuildkiteBuild.builder().number(555).build();
+        var runningBuild = BuildkiteBuild.builder().number(555).state("running").build();
+        var passedBuild = BuildkiteBuild.builder().number(555).state("passed").build();
+
+        // Paused after the first poll for two pause checks, then resumed
+        var testStepExecution = new PausingBuildkiteStepExecution(step, mockContext, true, true, true, false);
+
+        when(mockClient.getBuild("test-org", "test-pipeline", 555))
+                .thenReturn(runningBuild)
+                .thenReturn(passedBuild);
+
+        Method method = BuildkiteStepExecution.class.getDeclaredMethod(
+                "waitForBuildCompletion",
+                BuildkiteApiClient.class,
+                BuildkiteBuild.class,
+                PrintStream.class
+        );
+        method.setAccessible(true);
+
+        method.invoke(testStepExecution, mockClient, initialBuild, mockConsole);
+
+        verify(mockConsole).println("Jenkins build paused, suspending polling of test-org/test-pipeline#555");
+        verify(mockConsole).println("Jenkins build resumed, re-attaching to test-org/test-pipeline#555");
+        verify(mockClient, times(2)).getBuild("test-org", "test-pipeline", 555);
+        assertTrue(testStepExecution.waitPausedWhileSleeping.contains(true));
+        assertEquals(0, BuildkiteMetrics.get().getPausedWaits());
+        verify(mockContext).onSuccess(passedResult(555));
+        verify(mockContext, never()).onFailure(any());
     }
 
     @Test
@@ -238,6 +621,18 @@ class BuildkiteStepExecutionTest {
         );
     }
 
+    private static Object passedResult(int number) {
+        return argThat(result -> result instanceof BuildkiteBuildResult buildResult
+                && buildResult.getNumber() == number
+                && buildResult.passed());
+    }
+
+    private static void setField(BuildkiteStepExecution execution, String name, Object value) throws Exception {
+        Field field = BuildkiteStepExecution.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(execution, value);
+    }
+
     private static class NoSleepBuildkiteStepExecution extends BuildkiteStepExecution {
         public NoSleepBuildkiteStepExecution(BuildkiteStep step, StepContext context) {
             super(step, context);
@@ -248,4 +643,25 @@ class BuildkiteStepExecutionTest {
             // Don't sleep in tests
         }
     }
+
+    private static class PausingBuildkiteStepExecution extends NoSleepBuildkiteStepExecution {
+        private final Deque<Boolean> pauseStates;
+        private final List<Boolean> waitPausedWhileSleeping = new ArrayList<>();
+
+        public PausingBuildkiteStepExecution(BuildkiteStep step, StepContext context, Boolean... pauseStates) {
+            super(step, context);
+            this.pauseStates = new ArrayDeque<>(List.of(pauseStates));
+        }
+
+        @Override
+        protected void sleepMillis(long millis) {
+            BuildkiteWaitRegistry.get().getWaits().forEach(wait -> waitPausedWhileSleeping.add(wait.isPaused()));
+        }
+
+        @Override
+        protected boolean isBuildPaused() {
+            Boolean paused = pauseStates.poll();
+            return paused != null && paused;
+        }
+    }
 }
@@ -37,6 +37,11 @@ class BuildkiteStepTest {
         assertEquals("HEAD", step.getCommit());
         assertFalse(step.isAsync());
         assertNull(step.getMessage());
+        assertEquals(0, step.getRetryFailedJobs());
+        assertEquals(0, step.getTimeout());
+        assertFalse(step.isCancelOnTimeout());
+        assertEquals(0, step.getPollIntervalSeconds());
+        assertFalse(step.isRunOnAgent());
     }
 
     @Test
@@ -134,4 +139,25 @@ class BuildkiteStepTest {
         step.setAsync(false);
         assertFalse(step.isAsync());
     }
+
+    @Test
+    void setRetryFailedJobs_ignoresNegativeValue() {
+        step.setRetryFailedJobs(3);
+        step.setRetryFailedJobs(-1);
+        assertEquals(3, step.getRetryFailedJobs());
+    }
+
+    @Test
+    void setTimeout_ignoresNegativeValue() {
+        step.setTimeout(30);
+        step.setTimeout(-5);
+        assertEquals(30, step.getTimeout());
+    }
+
+    @Test
+    void setPollIntervalSeconds_ignoresNegativeValue() {
+        step.setPollIntervalSeconds(30);
+        step.setPollIntervalSeconds(-1);
+        assertEquals(30, step.getPollIntervalSeconds());
+    }
 }
@@ -0,0 +1,112 @@
+package io.jenkins.plugins.buildkite.step;
+
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class BuildkiteWaitTest {
+
+    @Test
+    void sleep_refreshWakesWaitEarly() throws Exception {
+        var wait = newWait();
+
+        var sleeping = CompletableFuture.runAsync(() -> {
+            try {
+                wait.sleep(60_000);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        while (wait.getNextPollAt() == null) {
+            Thread.sleep(10);
+        }
+        wait.refresh();
+
+        sleeping.get(5, TimeUnit.SECONDS);
+        assertNull(wait.getNextPollAt());
+    }
+
+    @Test
+    void sleep_refreshBeforeSleep_returnsImmediately() throws Exception {
+        var wait = newWait();
+        wait.refresh();
+
+        long startedAt = System.nanoTime();
+        wait.sleep(60_000);
+
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startedAt) < 5);
+    }
+
+    @Test
+    void sleep_refreshOfWaitSharingWakeup_wakesSleeper() throws Exception {
+        var wakeup = new BuildkiteWait.Wakeup();
+        var sleeper = new BuildkiteWait(mock(StepExecution.class), "job #1", "job/job/1/", "org", "app", 1, null, wakeup);
+        var other = new BuildkiteWait(mock(StepExecution.class), "job #1", "job/job/1/", "org", "docs", 2, null, wakeup);
+        other.refresh();
+
+        long startedAt = System.nanoTime();
+        sleeper.sleep(60_000);
+
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startedAt) < 5);
+        assertFalse(sleeper.takeRefresh());
+        assertTrue(other.takeRefresh());
+    }
+
+    @Test
+    void takeRefresh_reportsRefreshOnce() throws Exception {
+        var wait = newWait();
+        assertFalse(wait.takeRefresh());
+
+        wait.refresh();
+        wait.sleep(60_000);
+
+        assertTrue(wait.takeRefresh());
+        assertFalse(wait.takeRefresh());
+    }
+
+    @Test
+    void recordPoll_updatesStateAndTime() {
+        var wait = newWait();
+
+        wait.recordPoll("running");
+
+        assertEquals("running", wait.getLastState());
+        assertNotNull(wait.getLastPollAt());
+    }
+
+    @Test
+    void cancel_stopsExecution() {
+        var execution = mock(StepExecution.class);
+        var wait = new BuildkiteWait(execution, "job #1", "job/job/1/", "org", "pipeline", 42, null);
+        var cause = new InterruptedException();
+
+        wait.cancel(cause);
+
+        verify(execution).stop(cause);
+    }
+
+    @Test
+    void registry_listsRegisteredWaits() {
+        var registry = BuildkiteWaitRegistry.get();
+        var wait = newWait();
+
+        registry.register(wait);
+        assertSame(wait, registry.getWait(wait.getId()));
+        assertTrue(registry.getWaits().contains(wait));
+
+        registry.unregister(wait);
+        assertNull(registry.getWait(wait.getId()));
+        assertFalse(registry.getWaits().contains(wait));
+    }
+
+    private static BuildkiteWait newWait() {
+        return new BuildkiteWait(mock(StepExecution.class), "job #1", "job/job/1/", "org", "pipeline", 42, null);
+    }
+}
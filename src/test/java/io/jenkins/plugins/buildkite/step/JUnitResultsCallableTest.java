@@ -0,0 +1,101 @@
+package io.jenkins.plugins.buildkite.step;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JUnitResultsCallableTest {
+
+    @TempDir Path tempDir;
+
+    @Test
+    void invoke_summarizesTestCasesAcrossReports() throws Exception {
+        Files.writeString(tempDir.resolve("junit-1.xml"), """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <testsuites>
+                  <testsuite name="unit" tests="3">
+                    <testcase classname="com.example.FooTest" name="passes" time="0.5"/>
+                    <testcase classname="com.example.FooTest" name="fails" time="1.5">
+                      <failure message="expected 1 but was 2">stack trace</failure>
+                    </testcase>
+                    <testcase classname="com.example.FooTest" name="ignored">
+                      <skipped/>
+                    </testcase>
+                  </testsuite>
+                </testsuites>
+                """);
+        Files.writeString(tempDir.resolve("junit-2.xml"), """
+                <testsuite name="integration">
+                  <testcase classname="com.example.BarTest" name="errors" time="2">
+                    <error message="boom"/>
+                  </testcase>
+                </testsuite>
+                """);
+
+        BuildkiteTestResults results = new JUnitResultsCallable(List.of("junit-1.xml", "junit-2.xml"))
+                .invoke(tempDir.toFile(), null);
+
+        assertEquals(4, results.getTotal());
+        assertEquals(1, results.getPassed());
+        assertEquals(2, results.getFailed());
+        assertEquals(1, results.getSkipped());
+        assertEquals(4.0, results.getDurationSeconds(), 0.001);
+        assertEquals(2, results.getFailedTests().size());
+        assertEquals("com.example.FooTest", results.getFailedTests().get(0).getClassName());
+        assertEquals("fails", results.getFailedTests().get(0).getName());
+        assertEquals("expected 1 but was 2", results.getFailedTests().get(0).getMessage());
+        assertEquals("boom", results.getFailedTests().get(1).getMessage());
+    }
+
+    @Test
+    void invoke_parsesLocaleFormattedTimes() throws Exception {
+        Files.writeString(tempDir.resolve("junit.xml"), """
+                <testsuite>
+                  <testcase classname="C" name="decimalComma" time="1,5"/>
+                  <testcase classname="C" name="thousandsGrouped" time="1,234.5"/>
+                  <testcase classname="C" name="unparseable" time="n/a"/>
+                </testsuite>
+                """);
+
+        BuildkiteTestResults results = new JUnitResultsCallable(List.of("junit.xml")).invoke(tempDir.toFile(), null);
+
+        assertEquals(3, results.getTotal());
+        assertEquals(1236.0, results.getDurationSeconds(), 0.001);
+    }
+
+    @Test
+    void invoke_capsFailedTestsAndMessages() throws Exception {
+        var report = new StringBuilder("<testsuite>");
+        for (int i = 0; i < BuildkiteTestResults.MAX_FAILED_TESTS + 10; i++) {
+            report.append(String.format("<testcase classname=\"C\" name=\"t%d\"><failure message=\"%s\"/></testcase>",
+                    i, "x".repeat(BuildkiteTestResults.MAX_MESSAGE_LENGTH + 1)));
+        }
+        report.append("</testsuite>");
+        Files.writeString(tempDir.resolve("junit.xml"), report);
+
+        BuildkiteTestResults results = new JUnitResultsCallable(List.of("junit.xml")).invoke(tempDir.toFile(), null);
+
+        assertEquals(BuildkiteTestResults.MAX_FAILED_TESTS + 10, results.getFailed());
+        assertEquals(BuildkiteTestResults.MAX_FAILED_TESTS, results.getFailedTests().size());
+        assertEquals(BuildkiteTestResults.MAX_MESSAGE_LENGTH + 1, results.getFailedTests().get(0).getMessage().length());
+    }
+
+    @Test
+    void invoke_rejectsDoctypeDeclarations() throws Exception {
+        Files.writeString(tempDir.resolve("junit.xml"), """
+                <?xml version="1.0"?>
+                <!DOCTYPE testsuite [<!ENTITY xxe SYSTEM "file:///etc/passwd">]>
+                <testsuite><testcase classname="C" name="&xxe;"/></testsuite>
+                """);
+
+        assertThrows(IOException.class, () -> {
+            new JUnitResultsCallable(List.of("junit.xml")).invoke(tempDir.toFile(), null);
+        });
+    }
+}
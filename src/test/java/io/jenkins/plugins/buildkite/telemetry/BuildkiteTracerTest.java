@@ -0,0 +1,88 @@
+package io.jenkins.plugins.buildkite.telemetry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BuildkiteTracerTest {
+    private static final String TRACEPARENT = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+
+    @Test
+    void noop_isDisabled() {
+        assertFalse(BuildkiteTracer.noop().isEnabled());
+    }
+
+    @Test
+    void startSpan_continuesRemoteTrace() {
+        var tracer = new BuildkiteTracer(List.of(span -> {}));
+
+        var span = tracer.startSpan("buildkite.trigger", TRACEPARENT);
+
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", span.getTraceId());
+        assertEquals("00f067aa0ba902b7", span.getParentSpanId());
+        assertNotEquals("00f067aa0ba902b7", span.getSpanId());
+    }
+
+    @Test
+    void startSpan_invalidTraceparent_startsNewTrace() {
+        var tracer = new BuildkiteTracer(List.of(span -> {}));
+
+        var span = tracer.startSpan("buildkite.trigger", "not-a-traceparent");
+
+        assertEquals(32, span.getTraceId().length());
+        assertEquals(16, span.getSpanId().length());
+        assertNull(span.getParentSpanId());
+    }
+
+    @Test
+    void startChildSpan_sharesTraceOfParent() {
+        var tracer = new BuildkiteTracer(List.of(span -> {}));
+        var parent = tracer.startSpan("buildkite.trigger", null);
+
+        var child = tracer.startChildSpan("buildkite.poll", parent);
+
+        assertEquals(parent.getTraceId(), child.getTraceId());
+        assertEquals(parent.getSpanId(), child.getParentSpanId());
+    }
+
+    @Test
+    void traceparent_identifiesSpan() {
+        var tracer = new BuildkiteTracer(List.of(span -> {}));
+        var span = tracer.startSpan("buildkite.trigger", TRACEPARENT);
+
+        assertEquals(
+                String.format("00-4bf92f3577b34da6a3ce929d0e0e4736-%s-01", span.getSpanId()),
+                span.traceparent()
+        );
+    }
+
+    @Test
+    void end_exportsSpanOnce() {
+        var exported = new ArrayList<BuildkiteSpan>();
+        var tracer = new BuildkiteTracer(List.of(exported::add));
+        var span = tracer.startSpan("buildkite.trigger", null).setAttribute("buildkite.build.number", 42);
+
+        span.end();
+        span.end();
+
+        assertEquals(List.of(span), exported);
+        assertEquals("42", span.getAttributes().get("buildkite.build.number"));
+        assertTrue(span.getEndEpochMillis() >= span.getStartEpochMillis());
+    }
+
+    @Test
+    void end_exporterFailure_doesNotPropagate() {
+        var exported = new ArrayList<BuildkiteSpan>();
+        BuildkiteSpanExporter failing = span -> {
+            throw new IllegalStateException("collector unavailable");
+        };
+        var tracer = new BuildkiteTracer(List.of(failing, exported::add));
+
+        tracer.startSpan("buildkite.trigger", null).end();
+
+        assertEquals(1, exported.size());
+    }
+}
@@ -0,0 +1,62 @@
+package io.jenkins.plugins.buildkite.telemetry;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LatencyHistogramTest {
+
+    @Test
+    void emptyHistogram_reportsZero() {
+        var histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMeanMillis());
+        assertEquals(0, histogram.getPercentileMillis(0.99));
+    }
+
+    @Test
+    void record_tracksCountMeanAndPercentiles() {
+        var histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(40);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(900);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(126, histogram.getMeanMillis(), 0.001);
+        assertEquals(50, histogram.getPercentileMillis(0.50));
+        assertEquals(50, histogram.getPercentileMillis(0.90));
+        assertEquals(1_000, histogram.getPercentileMillis(0.95));
+    }
+
+    @Test
+    void record_verySlowRequests_reportedWithLargestBound() {
+        var histogram = new LatencyHistogram();
+        histogram.record(5 * 60_000);
+
+        assertEquals(60_000, histogram.getPercentileMillis(0.99));
+    }
+
+    @Test
+    void forBuildTimings_reportsLongRunsBeyondAMinute() {
+        var histogram = LatencyHistogram.forBuildTimings();
+        for (int i = 0; i < 10; i++) {
+            histogram.record(20 * 60_000);
+        }
+        histogram.record(3 * 60 * 60_000);
+
+        assertEquals(30 * 60_000, histogram.getPercentileMillis(0.50));
+        assertEquals(4 * 60 * 60_000, histogram.getPercentileMillis(0.99));
+    }
+
+    @Test
+    void forBuildTimings_veryLongBuilds_reportedWithLargestBound() {
+        var histogram = LatencyHistogram.forBuildTimings();
+        histogram.record(24 * 60 * 60_000L);
+
+        assertEquals(8 * 60 * 60_000, histogram.getPercentileMillis(0.99));
+    }
+}